@@ -26,6 +26,10 @@ theme attribute (in the form
 containing a value of this type.
          */
         public static int seriesData=0x7f010000;
+        /** <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+         */
+        public static int seriesDataRes=0x7f010004;
         /** <p>Must be a string value, using '\\;' to escape characters such as '\\n' or '\\uxxxx' for a unicode character.
 <p>This may also be a reference to a resource (in the form
 "<code>@[<i>package</i>:]<i>type</i>:<i>name</i></code>") or
@@ -87,18 +91,20 @@ containing a value of this type.
            <tr><td><code>{@link #GraphViewXML_android_title android:title}</code></td><td></td></tr>
            <tr><td><code>{@link #GraphViewXML_seriesColor com.jjoe64.graphview:seriesColor}</code></td><td></td></tr>
            <tr><td><code>{@link #GraphViewXML_seriesData com.jjoe64.graphview:seriesData}</code></td><td></td></tr>
+           <tr><td><code>{@link #GraphViewXML_seriesDataRes com.jjoe64.graphview:seriesDataRes}</code></td><td></td></tr>
            <tr><td><code>{@link #GraphViewXML_seriesTitle com.jjoe64.graphview:seriesTitle}</code></td><td></td></tr>
            <tr><td><code>{@link #GraphViewXML_seriesType com.jjoe64.graphview:seriesType}</code></td><td></td></tr>
            </table>
            @see #GraphViewXML_android_title
            @see #GraphViewXML_seriesColor
            @see #GraphViewXML_seriesData
+           @see #GraphViewXML_seriesDataRes
            @see #GraphViewXML_seriesTitle
            @see #GraphViewXML_seriesType
          */
         public static final int[] GraphViewXML = {
             0x010101e1, 0x7f010000, 0x7f010001, 0x7f010002,
-            0x7f010003
+            0x7f010003, 0x7f010004
         };
         /**
           <p>This symbol is the offset where the {@link android.R.attr#title}
@@ -135,6 +141,16 @@ containing a value of this type.
           @attr name com.jjoe64.graphview:seriesData
         */
         public static int GraphViewXML_seriesData = 1;
+        /**
+          <p>This symbol is the offset where the {@link com.jjoe64.graphview.R.attr#seriesDataRes}
+          attribute's value can be found in the {@link #GraphViewXML} array.
+
+
+          <p>Must be a reference to another resource, in the form "<code>@[+][<i>package</i>:]<i>type</i>:<i>name</i></code>"
+or to a theme attribute in the form "<code>?[<i>package</i>:][<i>type</i>:]<i>name</i></code>".
+          @attr name com.jjoe64.graphview:seriesDataRes
+        */
+        public static int GraphViewXML_seriesDataRes = 5;
         /**
           <p>This symbol is the offset where the {@link com.jjoe64.graphview.R.attr#seriesTitle}
           attribute's value can be found in the {@link #GraphViewXML} array.
@@ -27,6 +27,7 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PointF;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
@@ -138,6 +139,24 @@ public class GraphView extends View {
      */
     protected SecondScale mSecondScale;
 
+    /**
+     * flag whether a data change was posted
+     * and will be processed at the next frame
+     *
+     * @see #postDataChanged(boolean, boolean, boolean)
+     */
+    private boolean mDataChangePending;
+
+    /**
+     * the merged options of the posted data changes
+     */
+    private boolean mPendingKeepLabelsSize, mPendingKeepViewport, mPendingScrollToEnd;
+
+    /**
+     * processes the posted data changes
+     */
+    private Runnable mPendingDataChange;
+
     /**
      * tap detector
      */
@@ -272,12 +291,75 @@ public class GraphView extends View {
      *                     performance.
      */
     public void onDataChanged(boolean keepLabelsSize, boolean keepViewport) {
+        onDataChanged(keepLabelsSize, keepViewport, false);
+    }
+
+    /**
+     * same as {@link #onDataChanged(boolean, boolean)}, but can
+     * also scroll the viewport to the end of the data.
+     * The viewport and labels will be recalculated only once,
+     * this is cheaper than calling {@link Viewport#scrollToEnd()}
+     * after {@link #onDataChanged(boolean, boolean)}.
+     *
+     * @param keepLabelsSize true if you don't want
+     *                       to recalculate the size of
+     *                       the labels.
+     * @param keepViewport true if you don't want that
+     *                     the viewport will be recalculated.
+     * @param scrollToEnd true => the viewport will scroll to the end (maxX).
+     *                    Only takes effect if the x axis bounds are manual.
+     */
+    public void onDataChanged(boolean keepLabelsSize, boolean keepViewport, boolean scrollToEnd) {
         // adjust grid system
         mViewport.calcCompleteRange();
+        if (scrollToEnd && mViewport.moveToEnd()) {
+            // the visible y-range depends on the new x-range
+            mViewport.calcCompleteRange();
+            keepViewport = false;
+        }
         mGridLabelRenderer.invalidate(keepLabelsSize, keepViewport);
         invalidate();
     }
 
+    /**
+     * same as {@link #onDataChanged(boolean, boolean, boolean)}, but
+     * the viewport and labels are recalculated only once at
+     * the start of the next frame, no matter how often the data
+     * of the series changed until then.
+     * The series use this when data is appended or reset.
+     * Has to be called on the UI thread.
+     *
+     * @param keepLabelsSize true if you don't want
+     *                       to recalculate the size of
+     *                       the labels.
+     * @param keepViewport true if you don't want that
+     *                     the viewport will be recalculated.
+     * @param scrollToEnd true => the viewport will scroll to the end (maxX).
+     */
+    public void postDataChanged(boolean keepLabelsSize, boolean keepViewport, boolean scrollToEnd) {
+        if (mDataChangePending) {
+            // merge with the pending change
+            mPendingKeepLabelsSize &= keepLabelsSize;
+            mPendingKeepViewport &= keepViewport;
+            mPendingScrollToEnd |= scrollToEnd;
+            return;
+        }
+        mDataChangePending = true;
+        mPendingKeepLabelsSize = keepLabelsSize;
+        mPendingKeepViewport = keepViewport;
+        mPendingScrollToEnd = scrollToEnd;
+        if (mPendingDataChange == null) {
+            mPendingDataChange = new Runnable() {
+                @Override
+                public void run() {
+                    mDataChangePending = false;
+                    onDataChanged(mPendingKeepLabelsSize, mPendingKeepViewport, mPendingScrollToEnd);
+                }
+            };
+        }
+        ViewCompat.postOnAnimation(this, mPendingDataChange);
+    }
+
     /**
      * will be called from Android system.
      *
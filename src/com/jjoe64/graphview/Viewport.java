@@ -32,6 +32,7 @@ import android.view.ScaleGestureDetector;
 import android.widget.OverScroller;
 
 import com.jjoe64.graphview.compat.OverScrollerCompat;
+import com.jjoe64.graphview.series.BaseSeries;
 import com.jjoe64.graphview.series.DataPointInterface;
 import com.jjoe64.graphview.series.Series;
 
@@ -568,32 +569,42 @@ public class Viewport {
             mCurrentViewport.right = mCompleteRange.right;
         } else if (mXAxisBoundsManual && !mYAxisBoundsManual && mCompleteRange.width() != 0) {
             // get highest/lowest of current viewport
-            // lowest
-            double d = Double.MAX_VALUE;
+            double lowest = Double.MAX_VALUE;
+            double highest = -Double.MAX_VALUE;
+            boolean found = false;
             for (Series s : series) {
-                Iterator<DataPointInterface> values = s.getValues(mCurrentViewport.left, mCurrentViewport.right);
-                while (values.hasNext()) {
-                    double v = values.next().getY();
-                    if (d > v) {
-                        d = v;
+                if (s instanceof BaseSeries) {
+                    // use the range index of the series
+                    BaseSeries bs = (BaseSeries) s;
+                    double l = bs.getLowestValueY(mCurrentViewport.left, mCurrentViewport.right);
+                    if (!Double.isNaN(l)) {
+                        lowest = Math.min(lowest, l);
+                        highest = Math.max(highest, bs.getHighestValueY(mCurrentViewport.left, mCurrentViewport.right));
+                        found = true;
                     }
+                    continue;
                 }
-            }
-
-            mCurrentViewport.bottom = (float) d;
-
-            // highest
-            d = Double.MIN_VALUE;
-            for (Series s : series) {
                 Iterator<DataPointInterface> values = s.getValues(mCurrentViewport.left, mCurrentViewport.right);
                 while (values.hasNext()) {
                     double v = values.next().getY();
-                    if (d < v) {
-                        d = v;
+                    if (Double.isNaN(v)) {
+                        // gap
+                        continue;
+                    }
+                    if (lowest > v) {
+                        lowest = v;
                     }
+                    if (highest < v) {
+                        highest = v;
+                    }
+                    found = true;
                 }
             }
-            mCurrentViewport.top = (float) d;
+
+            if (found) {
+                mCurrentViewport.bottom = (float) lowest;
+                mCurrentViewport.top = (float) highest;
+            }
         }
 
         // fixes blank screen when range is zero
@@ -975,14 +986,30 @@ public class Viewport {
      * @see #setXAxisBoundsManual(boolean)
      */
     public void scrollToEnd() {
+        if (moveToEnd()) {
+            mGraphView.onDataChanged(true, false);
+        }
+    }
+
+    /**
+     * moves the viewport to the end of the complete
+     * range by keeping the current viewport size, without
+     * recalculating the labels and redrawing the graph.
+     * The complete range has to be up to date.
+     *
+     * @return true if the viewport was moved, false if the x axis bounds are not manual
+     * @see #scrollToEnd()
+     */
+    boolean moveToEnd() {
         if (mXAxisBoundsManual) {
             float size = mCurrentViewport.width();
             mCurrentViewport.right = mCompleteRange.right;
             mCurrentViewport.left = mCompleteRange.right - size;
             mScrollingReferenceX = Float.NaN;
-            mGraphView.onDataChanged(true, false);
+            return true;
         } else {
             Log.w("GraphView", "scrollToEnd works only with manual x axis bounds");
+            return false;
         }
     }
 }
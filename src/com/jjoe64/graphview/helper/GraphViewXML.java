@@ -29,9 +29,11 @@ import com.jjoe64.graphview.GraphView;
 import com.jjoe64.graphview.R;
 import com.jjoe64.graphview.series.BarGraphSeries;
 import com.jjoe64.graphview.series.BaseSeries;
+import com.jjoe64.graphview.series.DataLoader;
 import com.jjoe64.graphview.series.DataPoint;
 import com.jjoe64.graphview.series.LineGraphSeries;
 import com.jjoe64.graphview.series.PointsGraphSeries;
+import com.jjoe64.graphview.series.PrimitiveDataStorage;
 
 /**
  * helper class to use GraphView directly
@@ -40,6 +42,11 @@ import com.jjoe64.graphview.series.PointsGraphSeries;
  * You can set the data via attribute <b>app:seriesData</b>
  * in the format: "X=Y;X=Y;..." e.g. "0=5.0;1=5;2=4;3=9"
  *
+ * For more data use the attribute <b>app:seriesDataRes</b> with
+ * a raw resource in the CSV format (one "X,Y" per line), e.g.
+ * app:seriesDataRes="@raw/data". The resource is loaded in the
+ * background, so the layout inflation is not blocked.
+ *
  * Other styling options:
  * <li>app:seriesType="line|bar|points"</li>
  * <li>app:seriesColor="#ff0000"</li>
@@ -77,6 +84,7 @@ public class GraphViewXML extends GraphView {
                 R.styleable.GraphViewXML);
 
         String dataStr = a.getString(R.styleable.GraphViewXML_seriesData);
+        int dataRes = a.getResourceId(R.styleable.GraphViewXML_seriesDataRes, 0);
         int color = a.getColor(R.styleable.GraphViewXML_seriesColor, Color.TRANSPARENT);
         String type = a.getString(R.styleable.GraphViewXML_seriesType);
         String seriesTitle = a.getString(R.styleable.GraphViewXML_seriesTitle);
@@ -85,23 +93,21 @@ public class GraphViewXML extends GraphView {
         a.recycle();
 
         // decode data
-        DataPoint[] data;
-        if (dataStr == null || dataStr.isEmpty()) {
-            throw new IllegalArgumentException("Attribute seriesData is required in the format: 0=5.0;1=5;2=4;3=9");
-        } else {
-            String[] d = dataStr.split(";");
+        PrimitiveDataStorage data;
+        boolean loadResource = false;
+        if (dataStr != null && !dataStr.isEmpty()) {
             try {
-                data = new DataPoint[d.length];
-                int i = 0;
-                for (String dd : d) {
-                    String[] xy = dd.split("=");
-                    data[i] = new DataPoint(Double.parseDouble(xy[0]), Double.parseDouble(xy[1]));
-                    i++;
-                }
+                data = DataLoader.parsePairs(dataStr);
             } catch (Exception e) {
                 Log.e("GraphViewXML", e.toString());
                 throw new IllegalArgumentException("Attribute seriesData is broken. Use this format: 0=5.0;1=5;2=4;3=9");
             }
+        } else if (dataRes != 0) {
+            // will be loaded in the background
+            data = new PrimitiveDataStorage();
+            loadResource = true;
+        } else {
+            throw new IllegalArgumentException("Attribute seriesData is required in the format: 0=5.0;1=5;2=4;3=9 (or seriesDataRes with a raw CSV resource)");
         }
 
         // create series
@@ -123,6 +129,10 @@ public class GraphViewXML extends GraphView {
         }
         addSeries(series);
 
+        if (loadResource) {
+            new DataLoader(series).loadCsv(context.getResources().openRawResource(dataRes));
+        }
+
         if (seriesTitle != null && !seriesTitle.isEmpty()) {
             series.setTitle(seriesTitle);
             getLegendRenderer().setVisible(true);
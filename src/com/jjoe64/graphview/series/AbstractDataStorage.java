@@ -0,0 +1,70 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Base class for storages that finds the
+ * x-values via binary search and appends data points
+ * one by one.
+ * Storages that can do this faster override
+ * {@link #findIndex(double, boolean)} and
+ * {@link #addAll(DataStorage, int, int)}.
+ *
+ * @author jjoe64
+ */
+public abstract class AbstractDataStorage<E extends DataPointInterface> implements DataStorage<E> {
+    /**
+     * binary search for a x-value.
+     *
+     * @param x the x-value
+     * @param after false => index of the first data point with a x-value bigger or equal than x
+     *              true => index of the first data point with a x-value bigger than x
+     * @return the index or the count of data points if there is no such data point
+     */
+    @Override
+    public int findIndex(double x, boolean after) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double midX = getX(mid);
+            if (midX < x || (after && midX == x)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * appends the data points one by one via {@link #add(DataPointInterface)}.
+     *
+     * @param data the storage with the data points
+     * @param from index of the first data point
+     * @param to index after the last data point (exclusive)
+     */
+    @Override
+    public void addAll(DataStorage<E> data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(data.get(i));
+        }
+    }
+}
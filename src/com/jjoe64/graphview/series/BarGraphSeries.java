@@ -28,7 +28,6 @@ import com.jjoe64.graphview.GraphView;
 import com.jjoe64.graphview.ValueDependentColor;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -99,6 +98,17 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
         mPaint = new Paint();
     }
 
+    /**
+     * creates bar series that uses a specific storage
+     *
+     * @param storage storage with or without data
+     * @see com.jjoe64.graphview.series.PrimitiveDataStorage
+     */
+    public BarGraphSeries(DataStorage<E> storage) {
+        super(storage);
+        mPaint = new Paint();
+    }
+
     /**
      * draws the bars on the canvas
      *
@@ -114,6 +124,8 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
         }
         mPaint.setTextSize(mValuesOnTopSize);
 
+        loadVisibleData(graphView);
+
         // get data
         double maxX = graphView.getViewport().getMaxX(false);
         double minX = graphView.getViewport().getMinX(false);
@@ -128,21 +140,17 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
             minY = graphView.getViewport().getMinY(false);
         }
 
-        Iterator<E> values = getValues(minX, maxX);
+        DataStorage<E> data = getStorage();
+        int start = getStartIndex(minX);
+        int end = getEndIndex(maxX);
 
         // this works only if the data has no "hole" and if the interval is always the same
         // TODO do a check
-        int numOfBars = 0;
-        while (values.hasNext()) {
-            values.next();
-            numOfBars++;
-        }
-        if (numOfBars == 0) {
+        int numOfBars = end - start;
+        if (numOfBars <= 0) {
             return;
         }
 
-        values = getValues(minX, maxX);
-
         if (numOfBars == 1) numOfBars++;
 
         float colwidth = graphView.getGraphContentWidth() / (numOfBars-1);
@@ -158,11 +166,8 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
         float contentTop = graphView.getGraphContentTop();
 
         // draw data
-        int i=0;
-        while (values.hasNext()) {
-            E value = values.next();
-
-            double valY = value.getY() - minY;
+        for (int i = start; i < end; i++) {
+            double valY = data.getY(i) - minY;
             double ratY = valY / diffY;
             double y = contentHeight * ratY;
 
@@ -170,13 +175,13 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
             double ratY0 = valY0 / diffY;
             double y0 = contentHeight * ratY0;
 
-            double valX = value.getX() - minX;
+            double valX = data.getX(i) - minX;
             double ratX = valX / diffX;
             double x = contentWidth * ratX;
 
             // hook for value dependent color
             if (getValueDependentColor() != null) {
-                mPaint.setColor(getValueDependentColor().get(value));
+                mPaint.setColor(getValueDependentColor().get(data.get(i)));
             } else {
                 mPaint.setColor(getColor());
             }
@@ -199,7 +204,9 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
             bottom = Math.min(bottom, contentTop+contentHeight);
             top = Math.max(top, contentTop);
 
-            mDataPoints.put(new RectF(left, top, right, bottom), value);
+            if (mOnDataPointTapListener != null) {
+                mDataPoints.put(new RectF(left, top, right, bottom), data.get(i));
+            }
 
             canvas.drawRect(left, top, right, bottom, mPaint);
 
@@ -215,11 +222,9 @@ public class BarGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
 
                 mPaint.setColor(mValuesOnTopColor);
                 canvas.drawText(
-                        graphView.getGridLabelRenderer().getLabelFormatter().formatLabel(value.getY(), false)
+                        graphView.getGridLabelRenderer().getLabelFormatter().formatLabel(data.getY(i), false)
                         , (left+right)/2, top, mPaint);
             }
-
-            i++;
         }
     }
 
@@ -20,17 +20,29 @@
 package com.jjoe64.graphview.series;
 
 import android.graphics.PointF;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.jjoe64.graphview.GraphView;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Basis implementation for series.
@@ -40,8 +52,11 @@ import java.util.Set;
  * Extend this class to implement your own custom
  * graph type.
  *
- * This implementation uses a internal Array to store
- * the data. If you want to implement a custom data provider
+ * This implementation uses a {@link com.jjoe64.graphview.series.DataStorage}
+ * to store the data. By default the data point objects
+ * are stored ({@link com.jjoe64.graphview.series.ObjectDataStorage}).
+ * For large data sets use {@link com.jjoe64.graphview.series.PrimitiveDataStorage}.
+ * If you want to implement a custom data provider
  * you may want to implement {@link com.jjoe64.graphview.series.Series}.
  *
  * @author jjoe64
@@ -50,7 +65,102 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
     /**
      * holds the data
      */
-    final private List<E> mData = new ArrayList<E>();
+    private DataStorage<E> mStorage;
+
+    /**
+     * guards the changes of the data. The storage itself
+     * can not be used because it can be replaced.
+     */
+    private final Object mLock = new Object();
+
+    /**
+     * continuous index of the first data point.
+     * This is the count of data points that were
+     * removed from the beginning since the last reset.
+     */
+    private long mFirstIndex;
+
+    /**
+     * flag whether the cached lowest and highest
+     * y-values are valid
+     */
+    private boolean mExtremaValid;
+
+    /**
+     * caches the lowest y-value
+     */
+    private double mLowestValueY;
+
+    /**
+     * caches the highest y-value
+     */
+    private double mHighestValueY;
+
+    /**
+     * keeps the lowest y-value when data is removed from
+     * the beginning. It is only created for the first
+     * removal, because it can need as much memory as the data.
+     */
+    private MonotonicDeque mLowestY;
+
+    /**
+     * keeps the highest y-value when data is removed from
+     * the beginning.
+     *
+     * @see #mLowestY
+     */
+    private MonotonicDeque mHighestY;
+
+    /**
+     * index for the lowest/highest y-value of
+     * a x-range. null if it was not used yet.
+     */
+    private RangeExtremaIndex mRangeIndex;
+
+    /**
+     * min/max pyramid to draw big data sets.
+     * null if it was not used yet.
+     */
+    private DetailPyramid mPyramid;
+
+    /**
+     * the data points with a NaN y-value, where
+     * the line is interrupted. Only the ranges that were drawn
+     * are searched, appended data is added when the searched
+     * range reaches the end of the data.
+     */
+    private GapIndex mGaps;
+
+    /**
+     * indexes of the data points that
+     * have to be drawn
+     *
+     * @see #selectDataPoints(int, int, int)
+     */
+    private int[] mSelection = new int[0];
+
+    /**
+     * target count of data points for the
+     * downsampling via Largest-Triangle-Three-Buckets.
+     * 0 if it is disabled.
+     */
+    private int mDownsampleTarget;
+
+    /**
+     * the cached result of the downsampling
+     * and the range, target count and data version
+     * that it belongs to.
+     */
+    private int[] mDownsampled = new int[0];
+    private int mDownsampledCount;
+    private long mDownsampledStart = -1, mDownsampledEnd = -1;
+    private int mDownsampledTarget;
+    private long mDownsampledVersion;
+
+    /**
+     * counts the changes of the data
+     */
+    private long mDataVersion;
 
     /**
      * stores the used coordinates to find the
@@ -80,17 +190,116 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      */
     protected OnDataPointTapListener mOnDataPointTapListener;
 
+    /**
+     * listeners for the changes of the data.
+     * null if there is none.
+     */
+    private List<OnDataChangedListener> mOnDataChangedListeners;
+
     /**
      * stores the graphviews where this series is used.
-     * Can be more than one.
+     * Can be more than one. The series does not keep
+     * the views alive, e.g. when a series is shared between
+     * activities.
+     */
+    private List<WeakReference<GraphView>> mGraphViews;
+
+    /**
+     * provider to load the data lazily.
+     * null if the data is set directly.
+     */
+    private DataSource<E> mDataSource;
+
+    /**
+     * x-range and resolution of the data that is
+     * in the storage or that is being loaded
+     * from the data source.
+     */
+    private double mLoadedFrom, mLoadedUntil;
+    private int mLoadedResolution;
+
+    /**
+     * id of the latest request to the data source.
+     * Older responses are dropped.
+     */
+    private int mLoadRequest;
+
+    /**
+     * to deliver the data of the data source
+     * and of the ingestion queue on the UI thread
+     */
+    private Handler mHandler;
+
+    /**
+     * data points that were posted from a background
+     * thread via {@link #postData(DataPointInterface, boolean, int)}.
+     * null if it was not used yet.
+     */
+    private volatile IngestionQueue<E> mQueue;
+
+    /**
+     * flag whether the queue will be drained.
+     * The producer schedules the drain only once until it was done.
+     */
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+
+    /**
+     * the last x-value that was posted.
+     * Only used by the producer thread.
+     */
+    private double mPostedLastX = Double.NEGATIVE_INFINITY;
+
+    /**
+     * options of the last posted data point
+     */
+    private volatile boolean mPostedScrollToEnd;
+    private volatile int mPostedMaxDataPoints;
+
+    /**
+     * the drained data points, reused for every drain
+     */
+    private ArrayList<E> mDrained;
+
+    /**
+     * does the drain on the UI thread
+     */
+    private Runnable mDrain;
+
+    /**
+     * how much smaller than the highest x-value the
+     * x-value of a new data point can be.
+     *
+     * @see #setLateness(double)
+     */
+    private volatile double mLateness;
+
+    /**
+     * data points that may still be followed by late data points,
+     * sorted by the x-value. null if the lateness was never set.
+     */
+    private PriorityQueue<E> mLateData;
+
+    /**
+     * the highest x-value of the appended data points,
+     * including the ones in {@link #mLateData}
+     */
+    private double mLateHighestX = Double.NEGATIVE_INFINITY;
+
+    /**
+     * x-span of the data that is kept when data is appended,
+     * 0 to keep all data.
+     *
+     * @see #setRetentionWindow(double)
      */
-    private List<GraphView> mGraphViews;
+    private double mRetentionWindow;
 
     /**
      * creates series without data
      */
     public BaseSeries() {
-        mGraphViews = new ArrayList<GraphView>();
+        mGraphViews = new ArrayList<WeakReference<GraphView>>();
+        mStorage = new ObjectDataStorage<E>();
+        mGaps = new GapIndex(0);
     }
 
     /**
@@ -100,56 +309,645 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      *              important: array has to be sorted from lowest x-value to the highest
      */
     public BaseSeries(E[] data) {
-        mGraphViews = new ArrayList<GraphView>();
-        for (E d : data) {
-            mData.add(d);
+        mGraphViews = new ArrayList<WeakReference<GraphView>>();
+        mStorage = new ObjectDataStorage<E>(data);
+        mGaps = new GapIndex(mStorage.size());
+    }
+
+    /**
+     * creates series that uses a specific storage
+     * for the data.
+     *
+     * @param storage   storage with or without data
+     *                  important: data has to be sorted from lowest x-value to the highest
+     */
+    public BaseSeries(DataStorage<E> storage) {
+        mGraphViews = new ArrayList<WeakReference<GraphView>>();
+        mStorage = storage;
+        mGaps = new GapIndex(mStorage.size());
+    }
+
+    /**
+     * @return the storage that holds the data
+     */
+    protected DataStorage<E> getStorage() {
+        return mStorage;
+    }
+
+    /**
+     * set a data source that loads the data lazily for the
+     * visible range. The current data will be replaced by
+     * the data of the source.
+     * Only the data of the visible range (plus a margin) at the
+     * resolution of the graph is kept in memory.
+     *
+     * @param dataSource the data source or null to remove it
+     */
+    public void setDataSource(DataSource<E> dataSource) {
+        mDataSource = dataSource;
+        mLoadRequest++;
+        mLoadedFrom = mLoadedUntil = Double.NaN;
+        mLoadedResolution = 0;
+        if (dataSource != null) {
+            getHandler();
+            synchronized (mLock) {
+                if (mStorage.isReadOnly()) {
+                    mStorage = new ObjectDataStorage<E>();
+                } else {
+                    mStorage.clear();
+                }
+                resetCaches();
+            }
+            notifyDataReset();
+        }
+
+        // update graphview
+        notifyDataChanged(false, false, false);
+    }
+
+    /**
+     * @return the data source or null if the data is set directly
+     */
+    public DataSource<E> getDataSource() {
+        return mDataSource;
+    }
+
+    /**
+     * requests the data of the visible range from the data
+     * source if the data that was loaded does not cover the
+     * viewport or if it is too coarse for the current zoom.
+     * Called by the series implementations before drawing.
+     * The data is loaded with a margin of half the viewport
+     * on both sides, so scrolling does not need a request
+     * for every frame.
+     *
+     * @param graphView corresponding graphview
+     */
+    protected void loadVisibleData(GraphView graphView) {
+        if (mDataSource == null) return;
+
+        double minX = graphView.getViewport().getMinX(false);
+        double maxX = graphView.getViewport().getMaxX(false);
+        int width = Math.max(graphView.getGraphContentWidth(), 1);
+        double span = maxX - minX;
+        if (!(span > 0)) {
+            // the viewport is not initialized, load the complete range
+            minX = mDataSource.getLowestValueX();
+            maxX = mDataSource.getHighestValueX();
+            span = maxX - minX;
+            if (!(span >= 0) || mLoadedResolution > 0) return;
+        }
+
+        if (mLoadedResolution > 0) {
+            boolean covered = (minX >= mLoadedFrom || mLoadedFrom <= mDataSource.getLowestValueX())
+                    && (maxX <= mLoadedUntil || mLoadedUntil >= mDataSource.getHighestValueX());
+            // pixels of resolution that were loaded for the visible range
+            double resolution = mLoadedResolution * span / (mLoadedUntil - mLoadedFrom);
+            if (covered && resolution >= width / 2d) {
+                return;
+            }
+        }
+
+        final double from = minX - span / 2d;
+        final double until = maxX + span / 2d;
+        final int resolution = width * 2;
+        final int request = ++mLoadRequest;
+        mLoadedFrom = from;
+        mLoadedUntil = until;
+        mLoadedResolution = resolution;
+        mDataSource.loadData(from, until, resolution, new DataSource.Callback<E>() {
+            @Override
+            public void onDataLoaded(final DataStorage<E> data) {
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (request == mLoadRequest) {
+                            setStorage(data);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return handler of the UI thread
+     */
+    private synchronized Handler getHandler() {
+        if (mHandler == null) {
+            mHandler = new Handler(Looper.getMainLooper());
         }
+        return mHandler;
+    }
+
+    /**
+     * replaces the storage of the series, e.g. with data that was
+     * restored via {@link com.jjoe64.graphview.series.PrimitiveDataStorage#read(java.nio.channels.ReadableByteChannel)}.
+     * The order of the data is not checked, so this is O(1).
+     * Will redraw the graph.
+     *
+     * @param data  the new storage.
+     *              important: data has to be sorted from lowest x-value to the highest
+     */
+    public void setStorage(DataStorage<E> data) {
+        clearLateData();
+        synchronized (mLock) {
+            mStorage = data;
+            resetCaches();
+        }
+        notifyDataReset();
+
+        // update graphview
+        notifyDataChanged(true, false, false);
+    }
+
+    /**
+     * writes the x- and y-values in a binary format that
+     * can be restored via {@link com.jjoe64.graphview.series.PrimitiveDataStorage#read(java.nio.channels.ReadableByteChannel)}.
+     * Use this to save the data e.g. when the activity is destroyed.
+     *
+     * @param channel the channel, e.g. of a {@link java.io.FileOutputStream}
+     * @throws IOException if the data can not be written
+     */
+    public void writeData(WritableByteChannel channel) throws IOException {
+        PrimitiveDataStorage.write(mStorage, channel);
+    }
+
+    /**
+     * creates an immutable snapshot of the data.
+     * This is cheap, the data is not copied. The snapshot can be
+     * read from any thread without locking and does not change when
+     * the series is modified later.
+     * Call this on the thread that modifies the series, usually
+     * the UI thread, and pass the snapshot to the worker thread.
+     *
+     * @return the snapshot with the current data version
+     */
+    public DataSnapshot<E> snapshot() {
+        synchronized (mLock) {
+            return new DataSnapshot<E>(mStorage.snapshot(), mDataVersion);
+        }
+    }
+
+    /**
+     * @return the version of the data. It changes every time
+     *          data is added, removed or reset, so it can be used
+     *          to check whether derived values are still up to date.
+     */
+    public long getDataVersion() {
+        return mDataVersion;
     }
 
     /**
      * @return the lowest x value, or 0 if there is no data
      */
     public double getLowestValueX() {
-        if (mData.isEmpty()) return 0d;
-        return mData.get(0).getX();
+        if (mDataSource != null) return mDataSource.getLowestValueX();
+        if (mStorage.size() == 0) return 0d;
+        return mStorage.getX(0);
     }
 
     /**
      * @return the highest x value, or 0 if there is no data
      */
     public double getHighestValueX() {
-        if (mData.isEmpty()) return 0d;
-        return mData.get(mData.size()-1).getX();
+        if (mDataSource != null) return mDataSource.getHighestValueX();
+        if (mStorage.size() == 0) return 0d;
+        return mStorage.getX(mStorage.size()-1);
     }
 
     /**
      * @return the lowest y value, or 0 if there is no data
      */
     public double getLowestValueY() {
-        if (mData.isEmpty()) return 0d;
-        double l = mData.get(0).getY();
-        for (int i = 1; i < mData.size(); i++) {
-            double c = mData.get(i).getY();
-            if (l > c) {
-                l = c;
-            }
-        }
-        return l;
+        if (mStorage.size() == 0) return 0d;
+        if (mLowestY != null) return mLowestY.get();
+        if (!mExtremaValid) calcExtrema();
+        return mLowestValueY;
     }
 
     /**
      * @return the highest y value, or 0 if there is no data
      */
     public double getHighestValueY() {
-        if (mData.isEmpty()) return 0d;
-        double h = mData.get(0).getY();
-        for (int i = 1; i < mData.size(); i++) {
-            double c = mData.get(i).getY();
+        if (mStorage.size() == 0) return 0d;
+        if (mHighestY != null) return mHighestY.get();
+        if (!mExtremaValid) calcExtrema();
+        return mHighestValueY;
+    }
+
+    /**
+     * calculates the lowest and highest y-value
+     * by iterating all data. They will be updated
+     * when data is appended or removed.
+     */
+    private void calcExtrema() {
+        double l = Double.POSITIVE_INFINITY;
+        double h = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < mStorage.size(); i++) {
+            double c = mStorage.getY(i);
+            if (l > c) {
+                l = c;
+            }
             if (h < c) {
                 h = c;
             }
         }
-        return h;
+        mLowestValueY = l;
+        mHighestValueY = h;
+        mExtremaValid = true;
+    }
+
+    /**
+     * get the lowest y-value of the data that is returned by
+     * {@link #getValues(double, double)} for a x-range.
+     * This is O(log n), so it can be used to scale the
+     * y-axis to the visible data on every frame.
+     *
+     * @param from minimal x-value
+     * @param until maximal x-value
+     * @return the lowest y-value or NaN if there is no data in the range
+     *          or only gaps, then the viewport keeps its bounds
+     */
+    public double getLowestValueY(double from, double until) {
+        if (!queryRange(from, until)) return Double.NaN;
+        return mRangeIndex.getResultMin();
+    }
+
+    /**
+     * get the highest y-value of the data that is returned by
+     * {@link #getValues(double, double)} for a x-range.
+     * This is O(log n), so it can be used to scale the
+     * y-axis to the visible data on every frame.
+     *
+     * @param from minimal x-value
+     * @param until maximal x-value
+     * @return the highest y-value or NaN if there is no data in the range
+     *          or only gaps, then the viewport keeps its bounds
+     */
+    public double getHighestValueY(double from, double until) {
+        if (!queryRange(from, until)) return Double.NaN;
+        return mRangeIndex.getResultMax();
+    }
+
+    /**
+     * queries the range index.
+     * The index will be created if it was not used yet.
+     *
+     * @param from minimal x-value
+     * @param until maximal x-value
+     * @return false if there is no data in the range,
+     *          or only gaps (NaN)
+     */
+    private boolean queryRange(double from, double until) {
+        int start = getStartIndex(from);
+        int end = getEndIndex(until);
+        if (start >= end) return false;
+        if (mRangeIndex == null) {
+            mRangeIndex = new RangeExtremaIndex(mFirstIndex, mStorage.size());
+            for (int i = 0; i < mStorage.size(); i++) {
+                mRangeIndex.add(mFirstIndex + i, mStorage.getY(i));
+            }
+        }
+        mRangeIndex.query(mStorage, mFirstIndex, start, end-1);
+        // the result stays infinite if all values are NaN
+        return mRangeIndex.getResultMin() <= mRangeIndex.getResultMax();
+    }
+
+    /**
+     * selects the data points of a range that have to be
+     * drawn on a given width. If there are a lot more data
+     * points than pixels, only the lowest and highest data
+     * point of groups that are smaller than a pixel are selected.
+     * So the cost to draw depends on the width and not on the
+     * count of data points, but the peaks of the data are kept.
+     *
+     * The first call that needs the groups builds a min/max pyramid
+     * with one pass over the data. It starts with at most a few hundred KB
+     * for any count of data points, and grows by about 24 bytes per
+     * group of appended data points. When only a small part of
+     * a big data set is visible, finer groups than the pyramid has
+     * are needed; they are calculated by scanning the visible range.
+     * If a downsample target is set, the data points are
+     * selected via {@link #setDownsampleTarget(int) Largest-Triangle-Three-Buckets}.
+     *
+     * Get the indexes via {@link #getSelectedDataPoints()}.
+     *
+     * @param start index of the first data point of the range
+     * @param end index after the last data point of the range (exclusive)
+     * @param width width in pixel
+     * @return count of selected data points
+     */
+    protected int selectDataPoints(int start, int end, int width) {
+        int count = end - start;
+        if (mDownsampleTarget > 0 && count > mDownsampleTarget) {
+            return downsample(start, end);
+        }
+        int level = DetailPyramid.getLevel(count, width);
+        if (level < 0) {
+            return selectAllDataPoints(start, end);
+        }
+
+        if (mPyramid == null) {
+            mPyramid = new DetailPyramid(mFirstIndex, mStorage.size());
+            for (int i = 0; i < mStorage.size(); i++) {
+                mPyramid.add(mFirstIndex + i, mStorage.getY(i));
+            }
+        }
+        // a small pyramid may not have the level yet
+        level = mPyramid.getUsedLevel(level);
+        int max = DetailPyramid.getMaxSelection(count, level);
+        if (mSelection.length < max) {
+            mSelection = new int[max];
+        }
+        return mPyramid.select(mStorage, mFirstIndex, start, end, level, mSelection);
+    }
+
+    /**
+     * selects all data points of a range, e.g. for a scatter
+     * plot where every data point can be visible.
+     *
+     * Get the indexes via {@link #getSelectedDataPoints()}.
+     *
+     * @param start index of the first data point of the range
+     * @param end index after the last data point of the range (exclusive)
+     * @return count of selected data points
+     */
+    protected int selectAllDataPoints(int start, int end) {
+        int count = Math.max(end - start, 0);
+        if (mSelection.length < count) {
+            mSelection = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            mSelection[i] = start + i;
+        }
+        return count;
+    }
+
+    /**
+     * set a target count of data points for the visible range.
+     * If there are more data points in the visible range, they are
+     * downsampled via the Largest-Triangle-Three-Buckets algorithm.
+     * This keeps the visual shape of the data with far less
+     * data points. The result is cached until the data or
+     * the visible range changes.
+     * This is used instead of the min/max selection of
+     * {@link #selectDataPoints(int, int, int)}.
+     *
+     * @param targetCount target count of data points, at least 3,
+     *                    or 0 to disable the downsampling
+     */
+    public void setDownsampleTarget(int targetCount) {
+        mDownsampleTarget = targetCount > 0 ? Math.max(targetCount, 3) : 0;
+        mDownsampledStart = -1;
+    }
+
+    /**
+     * @return target count of data points for the visible
+     *          range, or 0 if the downsampling is disabled
+     * @see #setDownsampleTarget(int)
+     */
+    public int getDownsampleTarget() {
+        return mDownsampleTarget;
+    }
+
+    /**
+     * selects the data points of a range via
+     * Largest-Triangle-Three-Buckets, or uses the
+     * cached result if the range and the data did not change.
+     *
+     * @param start index of the first data point of the range
+     * @param end index after the last data point of the range (exclusive)
+     * @return count of selected data points
+     */
+    private int downsample(int start, int end) {
+        if (mDownsampledStart != mFirstIndex + start || mDownsampledEnd != mFirstIndex + end
+                || mDownsampledTarget != mDownsampleTarget || mDownsampledVersion != mDataVersion) {
+            int target = mDownsampleTarget;
+            if (mDownsampled.length < target) {
+                mDownsampled = new int[target];
+            }
+
+            // the first and the last data point are always selected,
+            // the others are split into buckets with one selected data point per bucket
+            double every = (double) (end - start - 2) / (target - 2);
+            int n = 0;
+            int a = start;
+            mDownsampled[n++] = a;
+            for (int b = 0; b < target - 2; b++) {
+                // average of the next bucket
+                int avgFrom = start + (int) ((b + 1) * every) + 1;
+                int avgTo = Math.min(start + (int) ((b + 2) * every) + 1, end);
+                double avgX = 0;
+                double avgY = 0;
+                for (int i = avgFrom; i < avgTo; i++) {
+                    avgX += mStorage.getX(i);
+                    avgY += mStorage.getY(i);
+                }
+                int avgCount = Math.max(avgTo - avgFrom, 1);
+                avgX /= avgCount;
+                avgY /= avgCount;
+
+                // data point of this bucket with the largest triangle
+                int from = start + (int) (b * every) + 1;
+                int to = start + (int) ((b + 1) * every) + 1;
+                double ax = mStorage.getX(a);
+                double ay = mStorage.getY(a);
+                double maxArea = -1;
+                int next = from;
+                for (int i = from; i < to; i++) {
+                    double area = Math.abs((ax - avgX) * (mStorage.getY(i) - ay)
+                            - (ax - mStorage.getX(i)) * (avgY - ay));
+                    if (area > maxArea) {
+                        maxArea = area;
+                        next = i;
+                    }
+                }
+                mDownsampled[n++] = next;
+                a = next;
+            }
+            mDownsampled[n++] = end - 1;
+
+            mDownsampledCount = n;
+            mDownsampledStart = mFirstIndex + start;
+            mDownsampledEnd = mFirstIndex + end;
+            mDownsampledTarget = target;
+            mDownsampledVersion = mDataVersion;
+        }
+
+        if (mSelection.length < mDownsampledCount) {
+            mSelection = new int[mDownsampledCount];
+        }
+        System.arraycopy(mDownsampled, 0, mSelection, 0, mDownsampledCount);
+        return mDownsampledCount;
+    }
+
+    /**
+     * selects the first, last, lowest and highest data point
+     * of every pixel column of a range (M4 aggregation).
+     * A line through these data points looks the same as a line
+     * through all data points, because the other data points are
+     * covered by the vertical line of the pixel column.
+     * Data points outside of the width are grouped into one column
+     * on each side.
+     *
+     * Get the indexes via {@link #getSelectedDataPoints()}.
+     *
+     * @param start index of the first data point of the range
+     * @param end index after the last data point of the range (exclusive)
+     * @param minX x-value at the left border
+     * @param diffX x-range of the width
+     * @param width width in pixel
+     * @return count of selected data points, at most 4 per pixel column
+     */
+    protected int selectPixelColumns(int start, int end, double minX, double diffX, int width) {
+        int max = 4 * (width + 2);
+        if (mSelection.length < max) {
+            mSelection = new int[max];
+        }
+
+        int n = 0;
+        int column = 0;
+        int first = -1, last = -1, lowest = -1, highest = -1;
+        double lowestY = 0, highestY = 0;
+        for (int i = start; i < end; i++) {
+            double y = mStorage.getY(i);
+            int c = (int) Math.floor(width * (mStorage.getX(i) - minX) / diffX);
+            if (c < -1) {
+                c = -1;
+            } else if (c > width) {
+                c = width;
+            }
+            if (first < 0 || c != column) {
+                if (first >= 0) {
+                    n = addPixelColumn(n, first, lowest, highest, last);
+                }
+                column = c;
+                first = last = lowest = highest = i;
+                if (Double.isNaN(y)) {
+                    // gap, any other value of the column is used
+                    lowestY = Double.POSITIVE_INFINITY;
+                    highestY = Double.NEGATIVE_INFINITY;
+                } else {
+                    lowestY = highestY = y;
+                }
+            } else {
+                last = i;
+                if (y < lowestY) {
+                    lowestY = y;
+                    lowest = i;
+                }
+                if (y > highestY) {
+                    highestY = y;
+                    highest = i;
+                }
+            }
+        }
+        if (first >= 0) {
+            n = addPixelColumn(n, first, lowest, highest, last);
+        }
+        return n;
+    }
+
+    /**
+     * adds the data points of a pixel column
+     * to the selection, ordered by the index.
+     *
+     * @param n count of selected data points
+     * @return the new count of selected data points
+     */
+    private int addPixelColumn(int n, int first, int lowest, int highest, int last) {
+        mSelection[n++] = first;
+        int a = Math.min(lowest, highest);
+        int b = Math.max(lowest, highest);
+        if (a > first) {
+            mSelection[n++] = a;
+        }
+        if (b > a && b > first) {
+            mSelection[n++] = b;
+        }
+        if (last > b && last > first) {
+            mSelection[n++] = last;
+        }
+        return n;
+    }
+
+    /**
+     * finds the next gap, a data point with a NaN y-value.
+     * The renderers use this to interrupt the line instead
+     * of checking every data point for NaN.
+     * Only the range is searched that was not searched before.
+     *
+     * @param index the index of a data point in the storage
+     * @param end index after the last data point that is drawn (exclusive)
+     * @return the index of the first gap at or after the data point,
+     *          or Integer.MAX_VALUE if there is none before end
+     */
+    protected int getNextGap(int index, int end) {
+        if (end <= index) {
+            return Integer.MAX_VALUE;
+        }
+        findGaps(mFirstIndex + index, mFirstIndex + end);
+        long gap = mGaps.next(mFirstIndex + index);
+        return gap < mFirstIndex + end ? (int) (gap - mFirstIndex) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * searches the gaps of a range that was not searched yet.
+     * The searched range is extended if the range touches it,
+     * otherwise it is replaced.
+     *
+     * @param from continuous index of the first data point
+     * @param until continuous index after the last data point
+     */
+    private void findGaps(long from, long until) {
+        long searchedFrom = mGaps.getFrom();
+        long searchedUntil = mGaps.getUntil();
+        if (from >= searchedFrom && until <= searchedUntil) {
+            return;
+        }
+        if (until < searchedFrom || from > searchedUntil) {
+            mGaps.reset(from);
+            searchedFrom = searchedUntil = from;
+        }
+        for (long i = searchedFrom - 1; i >= from; i--) {
+            if (Double.isNaN(mStorage.getY((int) (i - mFirstIndex)))) {
+                mGaps.addFirst(i);
+            }
+        }
+        for (long i = searchedUntil; i < until; i++) {
+            if (Double.isNaN(mStorage.getY((int) (i - mFirstIndex)))) {
+                mGaps.add(i);
+            }
+        }
+        mGaps.setRange(Math.min(from, searchedFrom), Math.max(until, searchedUntil));
+    }
+
+    /**
+     * @return the indexes of the data points that were selected
+     *          via {@link #selectDataPoints(int, int, int)},
+     *          {@link #selectAllDataPoints(int, int)}
+     *          or {@link #selectPixelColumns(int, int, double, double, int)}
+     */
+    protected int[] getSelectedDataPoints() {
+        return mSelection;
+    }
+
+    /**
+     * creates the cache for the lowest or highest
+     * y-value of a sliding window by iterating all data.
+     * The cache will be updated when data is appended
+     * or removed.
+     *
+     * @param lowest true => lowest, false => highest
+     * @return the cache
+     */
+    private MonotonicDeque createExtremaCache(boolean lowest) {
+        MonotonicDeque deque = new MonotonicDeque(lowest);
+        for (int i = 0; i < mStorage.size(); i++) {
+            deque.add(mFirstIndex + i, mStorage.getY(i));
+        }
+        return deque;
     }
 
     /**
@@ -164,71 +962,77 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      */
     @Override
     public Iterator<E> getValues(final double from, final double until) {
-        if (from <= getLowestValueX() && until >= getHighestValueX()) {
-            return mData.iterator();
-        } else {
-            return new Iterator<E>() {
-                Iterator<E> org = mData.iterator();
-                E nextValue = null;
-                E nextNextValue = null;
-                boolean plusOne = true;
-
-                {
-                    // go to first
-                    boolean found = false;
-                    E prevValue = null;
-                    if (org.hasNext()) {
-                        prevValue = org.next();
-                    }
-                    if (prevValue.getX() >= from) {
-                        nextValue = prevValue;
-                        found = true;
-                    } else {
-                        while (org.hasNext()) {
-                            nextValue = org.next();
-                            if (nextValue.getX() >= from) {
-                                found = true;
-                                nextNextValue = nextValue;
-                                nextValue = prevValue;
-                                break;
-                            }
-                            prevValue = nextValue;
-                        }
-                    }
-                    if (!found) {
-                        nextValue = null;
-                    }
-                }
+        final int start = getStartIndex(from);
+        final int end = getEndIndex(until);
+        return new Iterator<E>() {
+            int next = start;
 
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException();
-                }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
 
-                @Override
-                public E next() {
-                    if (hasNext()) {
-                        E r = nextValue;
-                        if (r.getX() > until) {
-                            plusOne = false;
-                        }
-                        if (nextNextValue != null) {
-                            nextValue = nextNextValue;
-                            nextNextValue = null;
-                        } else if (org.hasNext()) nextValue = org.next();
-                        else nextValue = null;
-                        return r;
-                    } else {
-                        throw new NoSuchElementException();
-                    }
+            @Override
+            public E next() {
+                if (hasNext()) {
+                    return mStorage.get(next++);
+                } else {
+                    throw new NoSuchElementException();
                 }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+        };
+    }
+
+    /**
+     * get the index of the first data point that is
+     * returned by {@link #getValues(double, double)}.
+     * This is one data point before the first data point
+     * that is bigger or equal than from.
+     * The index is found via binary search.
+     *
+     * @param from minimal x-value
+     * @return the index of the first data point in the range,
+     *          or the count of data points if there is no data
+     *          in the range.
+     */
+    public int getStartIndex(double from) {
+        int i = findIndex(from, false);
+        if (i == mStorage.size()) {
+            return i;
+        }
+        return i > 0 ? i-1 : 0;
+    }
+
+    /**
+     * get the index after the last data point that is
+     * returned by {@link #getValues(double, double)}.
+     * The last data point is the first one that is bigger
+     * than until.
+     * The index is found via binary search.
+     *
+     * @param until maximal x-value
+     * @return the index after the last data point in the range (exclusive)
+     */
+    public int getEndIndex(double until) {
+        return Math.min(findIndex(until, true)+1, mStorage.size());
+    }
 
-                @Override
-                public boolean hasNext() {
-                    return nextValue != null && (nextValue.getX() <= until || plusOne);
-                }
-            };
-        }
+    /**
+     * finds a x-value via {@link DataStorage#findIndex(double, boolean)},
+     * e.g. a binary search.
+     *
+     * @param x the x-value
+     * @param after false => index of the first data point with a x-value bigger or equal than x
+     *              true => index of the first data point with a x-value bigger than x
+     * @return the index or the count of data points if there is no such data point
+     */
+    protected int findIndex(double x, boolean after) {
+        return mStorage.findIndex(x, after);
     }
 
     /**
@@ -349,15 +1153,78 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      *             x-value has to be ASC. First the lowest x value and at least the highest x value.
      */
     public void resetData(E[] data) {
-        mData.clear();
-        for (E d : data) {
-            mData.add(d);
+        checkWritable();
+        // check before anything is changed
+        checkOrder(ObjectDataStorage.wrap(data));
+        clearLateData();
+        synchronized (mLock) {
+            mStorage.clear();
+            for (E d : data) {
+                mStorage.add(d);
+            }
+            resetCaches();
         }
-        checkValueOrder(null);
+        notifyDataReset();
 
         // update graphview
-        for (GraphView gv : mGraphViews) {
-            gv.onDataChanged(true, false);
+        notifyDataChanged(true, false, false);
+    }
+
+    /**
+     * sets new data without copying the array.
+     * The series takes the ownership of the array, so it
+     * must not be modified afterwards.
+     * will redraw the graph
+     *
+     * @param data          the values must be in the correct order!
+     *                      x-value has to be ASC. First the lowest x value and at least the highest x value.
+     * @param trustedSorted true to skip the check of the order.
+     *                      Use this only when the data is known to be sorted.
+     */
+    public void resetData(E[] data, boolean trustedSorted) {
+        resetData(ObjectDataStorage.wrap(data), trustedSorted);
+    }
+
+    /**
+     * replaces the data by the storage without copying.
+     * This is O(1) when trustedSorted is true, e.g. to
+     * swap whole datasets of a replay.
+     * will redraw the graph
+     *
+     * @param data          the storage, e.g. via {@link com.jjoe64.graphview.series.PrimitiveDataStorage#wrap(double[], double[], int)}.
+     *                      x-value has to be ASC.
+     * @param trustedSorted true to skip the check of the order.
+     *                      Use this only when the data is known to be sorted.
+     */
+    public void resetData(DataStorage<E> data, boolean trustedSorted) {
+        if (!trustedSorted) {
+            checkOrder(data);
+        }
+        setStorage(data);
+    }
+
+    /**
+     * adds a listener that is called when data is appended,
+     * removed or replaced.
+     *
+     * @param listener the listener
+     */
+    public void addOnDataChangedListener(OnDataChangedListener listener) {
+        if (mOnDataChangedListeners == null) {
+            mOnDataChangedListeners = new ArrayList<OnDataChangedListener>();
+        }
+        mOnDataChangedListeners.add(listener);
+    }
+
+    /**
+     * removes a listener that was added via
+     * {@link #addOnDataChangedListener(OnDataChangedListener)}
+     *
+     * @param listener the listener
+     */
+    public void removeOnDataChangedListener(OnDataChangedListener listener) {
+        if (mOnDataChangedListeners != null) {
+            mOnDataChangedListeners.remove(listener);
         }
     }
 
@@ -368,7 +1235,30 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      */
     @Override
     public void onGraphViewAttached(GraphView graphView) {
-        mGraphViews.add(graphView);
+        mGraphViews.add(new WeakReference<GraphView>(graphView));
+    }
+
+    /**
+     * lets the graph views recalculate the viewport and labels.
+     * All changes until the next frame are merged, so the
+     * views are recalculated only once per frame.
+     * Views that were garbage collected are dropped.
+     *
+     * @param keepLabelsSize true if the size of the labels is not recalculated
+     * @param keepViewport true if the viewport is not recalculated
+     * @param scrollToEnd true => the viewport will scroll to the end (maxX)
+     * @see GraphView#postDataChanged(boolean, boolean, boolean)
+     */
+    private void notifyDataChanged(boolean keepLabelsSize, boolean keepViewport, boolean scrollToEnd) {
+        Iterator<WeakReference<GraphView>> it = mGraphViews.iterator();
+        while (it.hasNext()) {
+            GraphView gv = it.next().get();
+            if (gv == null) {
+                it.remove();
+            } else {
+                gv.postDataChanged(keepLabelsSize, keepViewport, scrollToEnd);
+            }
+        }
     }
 
     /**
@@ -377,45 +1267,606 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      *                  x-value has to be ASC. First the lowest x value and at least the highest x value.
      * @param scrollToEnd true => graphview will scroll to the end (maxX)
      * @param maxDataPoints if max data count is reached, the oldest data
-     *                      value will be lost to avoid memory leaks
+     *                      value will be lost to avoid memory leaks.
+     *                      The storages of this library drop the oldest
+     *                      data in constant time.
      */
     public void appendData(E dataPoint, boolean scrollToEnd, int maxDataPoints) {
+        checkWritable();
+        if (mLateData != null) {
+            appendData(Collections.singletonList(dataPoint), scrollToEnd, maxDataPoints);
+            return;
+        }
         checkValueOrder(dataPoint);
+        int oldSize;
+        long oldFirstIndex;
+        synchronized (mLock) {
+            oldSize = mStorage.size();
+            oldFirstIndex = mFirstIndex;
+            int curDataCount = mStorage.size();
+            if (curDataCount >= maxDataPoints) {
+                // we have to trim the oldest data
+                removeFirst(curDataCount - Math.max(maxDataPoints, 1) + 1);
+            }
+            add(dataPoint);
+            removeExpired();
+        }
+        notifyDataAppended(oldSize, oldFirstIndex);
+
+        // recalc the labels when it was the first data
+        boolean keepLabels = mStorage.size() != 1;
+
+        // update linked graph views
+        // update graphview
+        notifyDataChanged(keepLabels, scrollToEnd, scrollToEnd);
+    }
 
-        if (!mData.isEmpty() && dataPoint.getX() < mData.get(mData.size()-1).getX()) {
+    /**
+     * appends a data point from a background thread, e.g.
+     * a sensor or bluetooth thread.
+     * The data point is put into a lock-free queue, so this
+     * never blocks and never touches the views.
+     * The UI thread appends all queued data points at once via
+     * {@link #appendData(java.util.Collection, boolean, int)}, and
+     * the views are recalculated at the start of the next frame.
+     *
+     * Only use one thread to post data to a series and do
+     * not mix it with {@link #resetData(DataPointInterface[])}.
+     *
+     * @param dataPoint values the values must be in the correct order!
+     *                  x-value has to be ASC. First the lowest x value and at least the highest x value.
+     * @param scrollToEnd true => graphview will scroll to the end (maxX)
+     * @param maxDataPoints if max data count is reached, the oldest data
+     *                      value will be lost to avoid memory leaks.
+     *                      The values of the last posted data point are used
+     *                      for all data points of a frame.
+     */
+    public void postData(E dataPoint, boolean scrollToEnd, int maxDataPoints) {
+        checkWritable();
+        if (dataPoint.getX() < mPostedLastX - mLateness) {
             throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
         }
-        synchronized (mData) {
-            int curDataCount = mData.size();
-            if (curDataCount < maxDataPoints) {
-                // enough space
-                mData.add(dataPoint);
-            } else {
-                // we have to trim one data
-                mData.remove(0);
-                mData.add(dataPoint);
+        mPostedLastX = Math.max(mPostedLastX, dataPoint.getX());
+
+        IngestionQueue<E> queue = mQueue;
+        if (queue == null) {
+            queue = createQueue();
+        }
+        mPostedScrollToEnd = scrollToEnd;
+        mPostedMaxDataPoints = maxDataPoints;
+        queue.offer(dataPoint);
+
+        if (mDrainScheduled.compareAndSet(false, true)) {
+            getHandler().post(mDrain);
+        }
+    }
+
+    /**
+     * creates the queue for {@link #postData(DataPointInterface, boolean, int)}
+     *
+     * @return the queue
+     */
+    private IngestionQueue<E> createQueue() {
+        mDrained = new ArrayList<E>();
+        mDrain = new Runnable() {
+            @Override
+            public void run() {
+                drainQueue();
             }
+        };
+        IngestionQueue<E> queue = new IngestionQueue<E>();
+        mQueue = queue;
+        return queue;
+    }
+
+    /**
+     * appends the data points of the queue.
+     * Called on the UI thread.
+     */
+    private void drainQueue() {
+        // reset first, so data that is posted while draining schedules a new drain
+        mDrainScheduled.set(false);
+        mQueue.drain(mDrained);
+        if (!mDrained.isEmpty()) {
+            appendData(mDrained, mPostedScrollToEnd, mPostedMaxDataPoints);
+            mDrained.clear();
         }
+    }
 
-        // recalc the labels when it was the first data
-        boolean keepLabels = mData.size() != 1;
+    /**
+     * appends multiple data points at once.
+     * The order is checked once for all data points and
+     * the graph views are updated only once, so this is much
+     * faster than calling {@link #appendData(DataPointInterface, boolean, int)}
+     * for each data point.
+     *
+     * @param dataPoints values the values must be in the correct order!
+     *                  x-value has to be ASC. First the lowest x value and at least the highest x value.
+     * @param scrollToEnd true => graphview will scroll to the end (maxX)
+     * @param maxDataPoints if max data count is reached, the oldest data
+     *                      values will be lost to avoid memory leaks.
+     */
+    public void appendData(E[] dataPoints, boolean scrollToEnd, int maxDataPoints) {
+        appendData(Arrays.asList(dataPoints), scrollToEnd, maxDataPoints);
+    }
+
+    /**
+     * appends multiple data points at once.
+     * The order is checked once for all data points and
+     * the graph views are updated only once, so this is much
+     * faster than calling {@link #appendData(DataPointInterface, boolean, int)}
+     * for each data point.
+     *
+     * @param dataPoints values the values must be in the correct order!
+     *                  x-value has to be ASC. First the lowest x value and at least the highest x value.
+     *                  See {@link #setLateness(double)} for data that arrives out of order.
+     * @param scrollToEnd true => graphview will scroll to the end (maxX)
+     * @param maxDataPoints if max data count is reached, the oldest data
+     *                      values will be lost to avoid memory leaks.
+     */
+    public void appendData(Collection<E> dataPoints, boolean scrollToEnd, int maxDataPoints) {
+        checkWritable();
+        if (mLateData != null) {
+            dataPoints = releaseLateData(dataPoints);
+        }
+        appendOrdered(dataPoints, scrollToEnd, maxDataPoints);
+    }
+
+    /**
+     * appends the data points of a storage at once, e.g. data that
+     * was loaded in the background. The values are copied directly
+     * into the storage of the series if it is the same kind of storage,
+     * see {@link DataStorage#addAll(DataStorage, int, int)}, and the
+     * caches are updated incrementally.
+     *
+     * @param data          the data points, x-value has to be ASC.
+     * @param trustedSorted true to skip the check of the order within the data.
+     *                      Use this only when the data is known to be sorted.
+     * @param scrollToEnd true => graphview will scroll to the end (maxX)
+     * @param maxDataPoints if max data count is reached, the oldest data
+     *                      values will be lost to avoid memory leaks.
+     */
+    public void appendData(final DataStorage<E> data, boolean trustedSorted, boolean scrollToEnd, int maxDataPoints) {
+        checkWritable();
+        if (mLateData != null) {
+            appendData(new AbstractList<E>() {
+                @Override
+                public E get(int index) {
+                    return data.get(index);
+                }
+
+                @Override
+                public int size() {
+                    return data.size();
+                }
+            }, scrollToEnd, maxDataPoints);
+            return;
+        }
+        int count = data.size();
+        if (count == 0) {
+            return;
+        }
+
+        // check the order before anything is changed
+        if (mStorage.size() > 0 && data.getX(0) < mStorage.getX(mStorage.size()-1)) {
+            throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
+        }
+        if (!trustedSorted) {
+            checkOrder(data);
+        }
+
+        boolean keepLabels;
+        int oldSize;
+        long oldFirstIndex;
+        synchronized (mLock) {
+            keepLabels = mStorage.size() != 0;
+            oldSize = mStorage.size();
+            oldFirstIndex = mFirstIndex;
+
+            // trim the oldest data once
+            int max = Math.max(maxDataPoints, 1);
+            int tooMuch = mStorage.size() + count - max;
+            if (tooMuch > 0) {
+                removeFirst(Math.min(tooMuch, mStorage.size()));
+            }
+            int first = mStorage.size();
+            mStorage.addAll(data, Math.max(count - max, 0), count);
+            for (int i = first; i < mStorage.size(); i++) {
+                addToCaches(i, mStorage.getY(i));
+            }
+            removeExpired();
+        }
+        notifyDataAppended(oldSize, oldFirstIndex);
+
+        // update graphview
+        notifyDataChanged(keepLabels, scrollToEnd, scrollToEnd);
+    }
+
+    /**
+     * appends multiple data points that have to be in the correct order.
+     *
+     * @see #appendData(java.util.Collection, boolean, int)
+     */
+    private void appendOrdered(Collection<E> dataPoints, boolean scrollToEnd, int maxDataPoints) {
+        if (dataPoints.isEmpty()) {
+            return;
+        }
+
+        // check the order before anything is changed
+        double lastX = mStorage.size() > 0 ? mStorage.getX(mStorage.size()-1) : Double.NEGATIVE_INFINITY;
+        for (E dataPoint : dataPoints) {
+            if (dataPoint.getX() < lastX) {
+                throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
+            }
+            lastX = dataPoint.getX();
+        }
+
+        boolean keepLabels;
+        int oldSize;
+        long oldFirstIndex;
+        synchronized (mLock) {
+            keepLabels = mStorage.size() != 0;
+            oldSize = mStorage.size();
+            oldFirstIndex = mFirstIndex;
+
+            // trim the oldest data once
+            int max = Math.max(maxDataPoints, 1);
+            int tooMuch = mStorage.size() + dataPoints.size() - max;
+            if (tooMuch > 0) {
+                removeFirst(Math.min(tooMuch, mStorage.size()));
+            }
+            int skip = dataPoints.size() - max;
+            for (E dataPoint : dataPoints) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    add(dataPoint);
+                }
+            }
+            removeExpired();
+        }
+        notifyDataAppended(oldSize, oldFirstIndex);
+
+        // update graphview
+        notifyDataChanged(keepLabels, scrollToEnd, scrollToEnd);
+    }
+
+    /**
+     * sets how late data points can arrive, e.g. for telemetry
+     * that is received over the network.
+     * A data point can then have a x-value that is up to lateness
+     * smaller than the highest x-value that was appended.
+     * The newest data points are held in a sorted buffer and
+     * are appended in batches once no older data point can arrive,
+     * so the newest lateness of the data is not shown until then.
+     * Data points that are older than the data that was already appended
+     * still cause an {@link IllegalArgumentException}.
+     *
+     * @param lateness the maximal lateness in units of the x-values,
+     *                 0 to append every data point directly (default)
+     */
+    public void setLateness(double lateness) {
+        if (lateness < 0) {
+            throw new IllegalArgumentException("lateness must not be negative");
+        }
+        mLateness = lateness;
+        if (lateness > 0 && mLateData == null) {
+            mLateData = new PriorityQueue<E>(16, new Comparator<E>() {
+                @Override
+                public int compare(E lhs, E rhs) {
+                    return Double.compare(lhs.getX(), rhs.getX());
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the maximal lateness of data points
+     * @see #setLateness(double)
+     */
+    public double getLateness() {
+        return mLateness;
+    }
+
+    /**
+     * appends all data points that are held back to
+     * wait for late data, e.g. at the end of a stream.
+     *
+     * @param scrollToEnd true => graphview will scroll to the end (maxX)
+     * @param maxDataPoints if max data count is reached, the oldest data
+     *                      values will be lost to avoid memory leaks.
+     * @see #setLateness(double)
+     */
+    public void flushLateData(boolean scrollToEnd, int maxDataPoints) {
+        if (mLateData == null || mLateData.isEmpty()) {
+            return;
+        }
+        checkWritable();
+        ArrayList<E> released = new ArrayList<E>(mLateData.size());
+        while (!mLateData.isEmpty()) {
+            released.add(mLateData.poll());
+        }
+        appendOrdered(released, scrollToEnd, maxDataPoints);
+    }
+
+    /**
+     * puts the data points into the buffer for late data and
+     * returns the data points that can not be preceded by
+     * late data anymore.
+     *
+     * @param dataPoints the new data points in any order
+     * @return the data points to append, sorted by the x-value
+     */
+    private Collection<E> releaseLateData(Collection<E> dataPoints) {
+        // check before anything is changed
+        double lastX = mStorage.size() > 0 ? mStorage.getX(mStorage.size()-1) : Double.NEGATIVE_INFINITY;
+        for (E dataPoint : dataPoints) {
+            if (dataPoint.getX() < lastX) {
+                throw new IllegalArgumentException("new x-value is older than the lateness. x-values has to be ordered in ASC.");
+            }
+        }
+
+        for (E dataPoint : dataPoints) {
+            mLateData.add(dataPoint);
+            mLateHighestX = Math.max(mLateHighestX, dataPoint.getX());
+        }
+
+        double watermark = mLateHighestX - mLateness;
+        if (mLateData.isEmpty() || mLateData.peek().getX() > watermark) {
+            return Collections.emptyList();
+        }
+        ArrayList<E> released = new ArrayList<E>();
+        while (!mLateData.isEmpty() && mLateData.peek().getX() <= watermark) {
+            released.add(mLateData.poll());
+        }
+        return released;
+    }
+
+    /**
+     * drops the data points that wait for late data
+     */
+    private void clearLateData() {
+        if (mLateData != null) {
+            mLateData.clear();
+        }
+        mLateHighestX = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * sets the x-span of the data that is kept, e.g.
+     * to keep the last 10 minutes of a time series
+     * independently of the sample rate.
+     * When data is appended, the data points that are older
+     * than the highest x-value minus the span are removed.
+     * This is used additionally to the maxDataPoints of
+     * {@link #appendData(DataPointInterface, boolean, int)}.
+     *
+     * @param span the span in units of the x-values, 0 to keep all data (default)
+     */
+    public void setRetentionWindow(double span) {
+        if (span < 0) {
+            throw new IllegalArgumentException("span must not be negative");
+        }
+        mRetentionWindow = span;
+    }
+
+    /**
+     * @return the x-span of the data that is kept, 0 if all data is kept
+     * @see #setRetentionWindow(double)
+     */
+    public double getRetentionWindow() {
+        return mRetentionWindow;
+    }
+
+    /**
+     * removes the data points that are outside of the
+     * retention window. Every data point is checked only
+     * once before it is removed, so this is amortized O(1)
+     * per appended data point.
+     */
+    private void removeExpired() {
+        int size = mStorage.size();
+        if (mRetentionWindow <= 0 || size == 0) {
+            return;
+        }
+        double limit = mStorage.getX(size - 1) - mRetentionWindow;
+        int count = 0;
+        while (count < size - 1 && mStorage.getX(count) < limit) {
+            count++;
+        }
+        if (count > 0) {
+            removeFirst(count);
+        }
+    }
+
+    /**
+     * appends a data point to the storage
+     * and updates the caches.
+     *
+     * @param dataPoint the data point
+     */
+    private void add(E dataPoint) {
+        mStorage.add(dataPoint);
+        addToCaches(mStorage.size() - 1, dataPoint.getY());
+    }
+
+    /**
+     * updates the caches for a data point
+     * that was appended to the storage.
+     *
+     * @param i index of the data point in the storage
+     * @param y y-value of the data point
+     */
+    private void addToCaches(int i, double y) {
+        mDataVersion++;
+        long index = mFirstIndex + i;
+        if (mLowestY != null) {
+            mLowestY.add(index, y);
+            mHighestY.add(index, y);
+        } else if (mExtremaValid) {
+            // comparison ignores NaN
+            if (y < mLowestValueY) mLowestValueY = y;
+            if (y > mHighestValueY) mHighestValueY = y;
+        }
+        if (mRangeIndex != null) {
+            mRangeIndex.add(index, y);
+        }
+        if (mPyramid != null) {
+            mPyramid.add(index, y);
+        }
+        if (mGaps.getUntil() == index) {
+            // the searched range reaches the end of the data
+            if (Double.isNaN(y)) {
+                mGaps.add(index);
+            }
+            mGaps.setRange(mGaps.getFrom(), index + 1);
+        }
+    }
+
+    /**
+     * removes the oldest data points from the storage
+     * and updates the caches.
+     *
+     * @param count count of data points
+     */
+    private void removeFirst(int count) {
+        mStorage.removeFirst(count);
+        mFirstIndex += count;
+        mDataVersion++;
+        if (mLowestY != null) {
+            mLowestY.removeBefore(mFirstIndex);
+            mHighestY.removeBefore(mFirstIndex);
+        } else if (mExtremaValid) {
+            // from now on the extrema have to be tracked for a sliding window
+            mLowestY = createExtremaCache(true);
+            mHighestY = createExtremaCache(false);
+        }
+        if (mRangeIndex != null) {
+            mRangeIndex.removeBefore(mFirstIndex);
+        }
+        if (mPyramid != null) {
+            mPyramid.removeBefore(mFirstIndex);
+        }
+        mGaps.removeBefore(mFirstIndex);
+    }
+
+    /**
+     * tells the {@link OnDataChangedListener}s which data points
+     * were removed and appended. Called after the lock was released.
+     * Only the data points that are still in the storage are reported
+     * as appended, e.g. not the ones that were dropped because of
+     * the maxDataPoints.
+     *
+     * @param oldSize the count of data points before the change
+     * @param oldFirstIndex the continuous index of the first data point before the change
+     */
+    private void notifyDataAppended(int oldSize, long oldFirstIndex) {
+        if (mOnDataChangedListeners == null) {
+            return;
+        }
+        int removed = (int) Math.min(mFirstIndex - oldFirstIndex, oldSize);
+        int from = oldSize - removed;
+        int to = mStorage.size();
+        for (int i = 0; i < mOnDataChangedListeners.size(); i++) {
+            OnDataChangedListener listener = mOnDataChangedListeners.get(i);
+            if (removed > 0) {
+                listener.onDataRemoved(this, removed);
+            }
+            if (to > from) {
+                listener.onDataAppended(this, mStorage, from, to);
+            }
+        }
+    }
+
+    /**
+     * removes the oldest data points, e.g. for a series
+     * that is derived from another series.
+     * will redraw the graph
+     *
+     * @param count the count of data points to remove
+     */
+    protected void removeFirstData(int count) {
+        checkWritable();
+        int oldSize;
+        long oldFirstIndex;
+        synchronized (mLock) {
+            count = Math.min(count, mStorage.size());
+            if (count <= 0) {
+                return;
+            }
+            oldSize = mStorage.size();
+            oldFirstIndex = mFirstIndex;
+            removeFirst(count);
+        }
+        notifyDataAppended(oldSize, oldFirstIndex);
 
-        // update linked graph views
         // update graphview
-        for (GraphView gv : mGraphViews) {
-            gv.onDataChanged(keepLabels, scrollToEnd);
-            if (scrollToEnd) {
-                gv.getViewport().scrollToEnd();
+        notifyDataChanged(true, false, false);
+    }
+
+    /**
+     * drops the cached values, they will be
+     * recalculated when they are needed.
+     * Call this if the data in the storage was
+     * changed without using the methods of the series.
+     * The {@link OnDataChangedListener}s are notified
+     * that the data was replaced.
+     */
+    protected void invalidateCaches() {
+        synchronized (mLock) {
+            resetCaches();
+        }
+        notifyDataReset();
+    }
+
+    /**
+     * drops the cached values. Call this with the lock
+     * and {@link #notifyDataReset()} after the lock was released.
+     */
+    private void resetCaches() {
+        mFirstIndex = 0;
+        mExtremaValid = false;
+        mLowestY = null;
+        mHighestY = null;
+        mRangeIndex = null;
+        mPyramid = null;
+        mGaps = new GapIndex(mStorage.size());
+        mDataVersion++;
+    }
+
+    /**
+     * tells the {@link OnDataChangedListener}s that the
+     * data was replaced. Called after the lock was released,
+     * so the listeners can read the series.
+     */
+    private void notifyDataReset() {
+        if (mOnDataChangedListeners != null) {
+            for (int i = 0; i < mOnDataChangedListeners.size(); i++) {
+                mOnDataChangedListeners.get(i).onDataReset(this);
             }
         }
     }
 
     /**
-     * @return whether there are data points
+     * @return whether there are data points. A series
+     *          with a data source is never empty.
      */
     @Override
     public boolean isEmpty() {
-        return mData.isEmpty();
+        return mStorage.size() == 0 && mDataSource == null;
+    }
+
+    /**
+     * checks that data can be added to the storage.
+     * This is done before anything is changed, so the
+     * data and the caches stay consistent.
+     *
+     * @throws UnsupportedOperationException if the storage is read-only
+     */
+    private void checkWritable() {
+        if (mStorage.isReadOnly()) {
+            throw new UnsupportedOperationException("The storage of the series is read-only. Use setStorage() or resetData(DataStorage, boolean) to replace the data.");
+        }
     }
 
     /**
@@ -425,22 +1876,33 @@ public abstract class BaseSeries<E extends DataPointInterface> implements Series
      *                  datapoint is after the last point.
      */
     protected void checkValueOrder(DataPointInterface onlyLast) {
-        if (mData.size()>1) {
+        if (mStorage.size()>1) {
             if (onlyLast != null) {
                 // only check last
-                if (onlyLast.getX() < mData.get(mData.size()-1).getX()) {
+                if (onlyLast.getX() < mStorage.getX(mStorage.size()-1)) {
                     throw new IllegalArgumentException("new x-value must be greater then the last value. x-values has to be ordered in ASC.");
                 }
             } else {
-                double lx = mData.get(0).getX();
+                checkOrder(mStorage);
+            }
+        }
+    }
 
-                for (int i = 1; i < mData.size(); i++) {
-                    if (mData.get(i).getX() != Double.NaN) {
-                        if (lx > mData.get(i).getX()) {
-                            throw new IllegalArgumentException("The order of the values is not correct. X-Values have to be ordered ASC. First the lowest x value and at least the highest x value.");
-                        }
-                        lx = mData.get(i).getX();
+    /**
+     * checks that the x-values of the storage are in ASC order
+     *
+     * @param data the storage to check
+     */
+    private static void checkOrder(DataStorage<?> data) {
+        if (data.size() > 1) {
+            double lx = data.getX(0);
+
+            for (int i = 1; i < data.size(); i++) {
+                if (!Double.isNaN(data.getX(i))) {
+                    if (lx > data.getX(i)) {
+                        throw new IllegalArgumentException("The order of the values is not correct. X-Values have to be ordered ASC. First the lowest x value and at least the highest x value.");
                     }
+                    lx = data.getX(i);
                 }
             }
         }
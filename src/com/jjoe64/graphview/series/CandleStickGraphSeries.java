@@ -129,6 +129,8 @@ public class CandleStickGraphSeries <E extends CandlePointInterface> extends Bas
     public void draw(GraphView graphView, Canvas canvas, boolean isSecondScale) {
         resetDataPoints();
 
+        loadVisibleData(graphView);
+
         // get data
         double maxX = graphView.getViewport().getMaxX(false);
         double minX = graphView.getViewport().getMinX(false);
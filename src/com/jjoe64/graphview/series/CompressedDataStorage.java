@@ -0,0 +1,563 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compressed storage for long recordings, e.g.
+ * monitoring data with evenly spaced timestamps
+ * and slowly changing values.
+ *
+ * The data points are stored in chunks of {@link #CHUNK_SIZE}
+ * data points that are compressed like in facebook's
+ * Gorilla time series database: the x-values as
+ * delta-of-delta if they are integers (e.g. timestamps in ms),
+ * otherwise like the y-values as XOR to the previous value.
+ * Evenly spaced integer x-values and unchanged y-values need
+ * only 1 bit each.
+ *
+ * The size depends on the data, measured with 300k data points
+ * and timestamps in ms every second, compared to 16 bytes per data
+ * point in {@link com.jjoe64.graphview.series.PrimitiveDataStorage}:
+ * <ul>
+ *     <li>constant values: about 0.3 bytes per data point</li>
+ *     <li>integer values that change by -1..1: about 1.5 bytes per data point</li>
+ *     <li>decimal values that change by -0.1..0.1: about 5 bytes per data point</li>
+ *     <li>noisy values (all bits of the mantissa used): about 8.5 bytes per data
+ *     point, about 14.5 bytes if the x-values are not integers</li>
+ * </ul>
+ *
+ * Only the chunks that are read are decompressed,
+ * the last decompressed chunks are cached. The first x-value
+ * of each chunk is kept uncompressed, so a x-value is found
+ * by decompressing only one chunk. The newest
+ * data points are kept uncompressed until their chunk is full.
+ *
+ * Example:
+ * <pre>
+ * {@code
+ *  CompressedDataStorage storage = new CompressedDataStorage();
+ *  storage.add(System.currentTimeMillis(), value);
+ *  LineGraphSeries<DataPoint> series = new LineGraphSeries<DataPoint>(storage);
+ * }
+ * </pre>
+ *
+ * @author jjoe64
+ */
+public class CompressedDataStorage extends AbstractDataStorage<DataPoint> {
+    /**
+     * count of data points per chunk as power of 2
+     */
+    private static final int CHUNK_SHIFT = 10;
+
+    /**
+     * count of data points per chunk
+     */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /**
+     * a decompressed chunk
+     */
+    private static final class Decoded {
+        final long chunk;
+        final double[] x = new double[CHUNK_SIZE];
+        final double[] y = new double[CHUNK_SIZE];
+
+        Decoded(long chunk) {
+            this.chunk = chunk;
+        }
+    }
+
+    /**
+     * writes bits into a growable array, highest bit first
+     */
+    private static final class BitWriter {
+        private long[] mWords = new long[256];
+        private int mBits;
+
+        /**
+         * @param value the value, the lowest bits are written
+         * @param count count of bits, 1 to 64
+         */
+        void write(long value, int count) {
+            if (mBits + count > mWords.length * 64) {
+                mWords = Arrays.copyOf(mWords, mWords.length * 2);
+            }
+            int w = mBits >>> 6;
+            int free = 64 - (mBits & 63);
+            long v = count == 64 ? value : value & ((1L << count) - 1);
+            if (count <= free) {
+                mWords[w] |= v << (free - count);
+            } else {
+                mWords[w] |= v >>> (count - free);
+                mWords[w + 1] |= v << (64 - (count - free));
+            }
+            mBits += count;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(mWords, (mBits + 63) >>> 6);
+        }
+    }
+
+    /**
+     * reads bits that were written by the {@link BitWriter}
+     */
+    private static final class BitReader {
+        private final long[] mWords;
+        private int mBits;
+
+        BitReader(long[] words) {
+            mWords = words;
+        }
+
+        /**
+         * @param count count of bits, 1 to 64
+         * @return the bits as the lowest bits of the value
+         */
+        long read(int count) {
+            int w = mBits >>> 6;
+            int off = mBits & 63;
+            int available = 64 - off;
+            long v;
+            if (count <= available) {
+                v = (mWords[w] << off) >>> (64 - count);
+            } else {
+                v = ((mWords[w] << off) >>> (64 - count))
+                        | (mWords[w + 1] >>> (64 - (count - available)));
+            }
+            mBits += count;
+            return v;
+        }
+
+        /**
+         * reads a signed value
+         */
+        long readSigned(int count) {
+            return (read(count) << (64 - count)) >> (64 - count);
+        }
+    }
+
+    /**
+     * state of the XOR compression of one column
+     */
+    private static final class XorState {
+        long previous;
+        int leading = -1;
+        int trailing;
+
+        void write(BitWriter out, long value) {
+            long xor = value ^ previous;
+            previous = value;
+            if (xor == 0) {
+                out.write(0, 1);
+                return;
+            }
+            int lead = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                // fits into the meaningful bits of the previous value
+                out.write(2, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int significant = 64 - lead - trail;
+                out.write(3, 2);
+                out.write(lead, 5);
+                out.write(significant - 1, 6);
+                out.write(xor >>> trail, significant);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+
+        long read(BitReader in) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(5);
+                    trailing = 64 - leading - ((int) in.read(6) + 1);
+                }
+                previous ^= in.read(64 - leading - trailing) << trailing;
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * the full chunks, compressed.
+     */
+    private final ArrayList<long[]> mChunks;
+
+    /**
+     * the first x-value of each full chunk, so that
+     * x-values can be found without decompressing the chunks.
+     */
+    private double[] mChunkFirstX;
+
+    /**
+     * continuous number of the first chunk,
+     * used to identify the cached chunks
+     */
+    private long mFirstChunk;
+
+    /**
+     * the data points of the last chunk, not compressed
+     */
+    private final double[] mTailX;
+    private final double[] mTailY;
+    private int mTailSize;
+
+    /**
+     * count of removed data points in the first chunk
+     */
+    private int mOffset;
+
+    /**
+     * count of data points
+     */
+    private int mSize;
+
+    /**
+     * the last decompressed chunks.
+     * The decoded chunks are not modified after they were
+     * set, so snapshots can be read from any thread.
+     */
+    private volatile Decoded mCache;
+    private volatile Decoded mCachePrevious;
+
+    /**
+     * creates an empty storage
+     */
+    public CompressedDataStorage() {
+        mChunks = new ArrayList<long[]>();
+        mChunkFirstX = new double[16];
+        mTailX = new double[CHUNK_SIZE];
+        mTailY = new double[CHUNK_SIZE];
+    }
+
+    /**
+     * creates a view for a snapshot
+     */
+    private CompressedDataStorage(CompressedDataStorage source) {
+        mChunks = new ArrayList<long[]>(source.mChunks);
+        mChunkFirstX = Arrays.copyOf(source.mChunkFirstX, Math.max(mChunks.size(), 1));
+        mFirstChunk = source.mFirstChunk;
+        mTailX = Arrays.copyOf(source.mTailX, source.mTailSize);
+        mTailY = Arrays.copyOf(source.mTailY, source.mTailSize);
+        mTailSize = source.mTailSize;
+        mOffset = source.mOffset;
+        mSize = source.mSize;
+        mCache = source.mCache;
+        mCachePrevious = source.mCachePrevious;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public double getX(int index) {
+        int p = mOffset + index;
+        int chunk = p >>> CHUNK_SHIFT;
+        if (chunk == mChunks.size()) {
+            return mTailX[p & (CHUNK_SIZE - 1)];
+        }
+        return decoded(chunk).x[p & (CHUNK_SIZE - 1)];
+    }
+
+    @Override
+    public double getY(int index) {
+        int p = mOffset + index;
+        int chunk = p >>> CHUNK_SHIFT;
+        if (chunk == mChunks.size()) {
+            return mTailY[p & (CHUNK_SIZE - 1)];
+        }
+        return decoded(chunk).y[p & (CHUNK_SIZE - 1)];
+    }
+
+    @Override
+    public DataPoint get(int index) {
+        return new DataPoint(getX(index), getY(index));
+    }
+
+    @Override
+    public void add(DataPoint dataPoint) {
+        add(dataPoint.getX(), dataPoint.getY());
+    }
+
+    /**
+     * appends a value pair without creating
+     * a data point object.
+     *
+     * @param x x-value
+     * @param y y-value
+     */
+    public void add(double x, double y) {
+        mTailX[mTailSize] = x;
+        mTailY[mTailSize] = y;
+        mTailSize++;
+        mSize++;
+        if (mTailSize == CHUNK_SIZE) {
+            int n = mChunks.size();
+            if (n == mChunkFirstX.length) {
+                mChunkFirstX = Arrays.copyOf(mChunkFirstX, n * 2);
+            }
+            mChunkFirstX[n] = mTailX[0];
+            mChunks.add(compress(mTailX, mTailY));
+            mTailSize = 0;
+        }
+    }
+
+    /**
+     * appends the value pairs without creating
+     * data point objects.
+     *
+     * @param data the storage with the data points
+     * @param from index of the first data point
+     * @param to index after the last data point (exclusive)
+     */
+    @Override
+    public void addAll(DataStorage<DataPoint> data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(data.getX(i), data.getY(i));
+        }
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        mOffset += count;
+        mSize -= count;
+        int chunks = Math.min(mOffset >>> CHUNK_SHIFT, mChunks.size());
+        if (chunks > 0) {
+            System.arraycopy(mChunkFirstX, chunks, mChunkFirstX, 0, mChunks.size() - chunks);
+            mChunks.subList(0, chunks).clear();
+            mFirstChunk += chunks;
+            mOffset -= chunks << CHUNK_SHIFT;
+        }
+    }
+
+    @Override
+    public void clear() {
+        mFirstChunk += mChunks.size() + 1;
+        mChunks.clear();
+        mTailSize = 0;
+        mOffset = 0;
+        mSize = 0;
+    }
+
+    /**
+     * finds the chunk via the first x-values of the chunks,
+     * so only one chunk is decompressed.
+     *
+     * @param x the x-value
+     * @param after false => index of the first data point with a x-value bigger or equal than x
+     *              true => index of the first data point with a x-value bigger than x
+     * @return the index or the count of data points if there is no such data point
+     */
+    @Override
+    public int findIndex(double x, boolean after) {
+        if (mSize == 0) {
+            return 0;
+        }
+        int chunks = mChunks.size();
+
+        // last chunk that starts before x, the tail is chunk number chunks
+        int low = 0;
+        int high = mTailSize > 0 ? chunks + 1 : chunks;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double midX = mid == chunks ? mTailX[0] : mChunkFirstX[mid];
+            if (midX < x || (after && midX == x)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int chunk = low - 1;
+        if (chunk < 0) {
+            return 0;
+        }
+
+        double[] values = chunk == chunks ? mTailX : decoded(chunk).x;
+        int from = chunk == 0 ? mOffset : 0;
+        int to = chunk == chunks ? mTailSize : CHUNK_SIZE;
+        low = from;
+        high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double midX = values[mid];
+            if (midX < x || (after && midX == x)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return (chunk << CHUNK_SHIFT) + low - mOffset;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * the compressed chunks are not modified, so the
+     * snapshot only copies the list of chunks and the
+     * uncompressed data points of the last chunk.
+     *
+     * @return a view of the data that will not change
+     */
+    @Override
+    public DataStorage<DataPoint> snapshot() {
+        return new CompressedDataStorage(this);
+    }
+
+    /**
+     * @return count of bytes of the compressed chunks
+     *          and the uncompressed last chunk.
+     */
+    public long getMemoryUsage() {
+        long bytes = 2L * 8 * mTailX.length;
+        for (long[] chunk : mChunks) {
+            bytes += 8L * chunk.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * get a chunk decompressed, from the cache if possible
+     *
+     * @param chunk index of the chunk in {@link #mChunks}
+     * @return the decompressed chunk
+     */
+    private Decoded decoded(int chunk) {
+        long id = mFirstChunk + chunk;
+        Decoded d = mCache;
+        if (d != null && d.chunk == id) {
+            return d;
+        }
+        Decoded previous = mCachePrevious;
+        if (previous != null && previous.chunk == id) {
+            mCachePrevious = d;
+            mCache = previous;
+            return previous;
+        }
+        Decoded decoded = decompress(id, mChunks.get(chunk));
+        mCachePrevious = d;
+        mCache = decoded;
+        return decoded;
+    }
+
+    /**
+     * compresses a full chunk.
+     * The first bit is 1 if the x-values are integers
+     * that are stored as delta-of-delta. Then follow the
+     * first x/y values and the compressed values.
+     *
+     * @param x x-values
+     * @param y y-values
+     * @return the bits
+     */
+    private static long[] compress(double[] x, double[] y) {
+        boolean integers = true;
+        for (int i = 0; i < CHUNK_SIZE && integers; i++) {
+            integers = Math.abs(x[i]) < (1L << 53)
+                    && Double.doubleToRawLongBits((double) (long) x[i]) == Double.doubleToRawLongBits(x[i]);
+        }
+
+        BitWriter out = new BitWriter();
+        out.write(integers ? 1 : 0, 1);
+        XorState xs = new XorState();
+        XorState ys = new XorState();
+        xs.write(out, Double.doubleToRawLongBits(x[0]));
+        ys.write(out, Double.doubleToRawLongBits(y[0]));
+        long previousDelta = 0;
+        for (int i = 1; i < CHUNK_SIZE; i++) {
+            if (integers) {
+                long delta = (long) x[i] - (long) x[i - 1];
+                long dod = delta - previousDelta;
+                previousDelta = delta;
+                if (dod == 0) {
+                    out.write(0, 1);
+                } else if (dod >= -64 && dod < 64) {
+                    out.write(2, 2);
+                    out.write(dod, 7);
+                } else if (dod >= -256 && dod < 256) {
+                    out.write(6, 3);
+                    out.write(dod, 9);
+                } else if (dod >= -2048 && dod < 2048) {
+                    out.write(14, 4);
+                    out.write(dod, 12);
+                } else {
+                    out.write(15, 4);
+                    out.write(dod, 64);
+                }
+            } else {
+                xs.write(out, Double.doubleToRawLongBits(x[i]));
+            }
+            ys.write(out, Double.doubleToRawLongBits(y[i]));
+        }
+        return out.toArray();
+    }
+
+    /**
+     * decompresses a chunk
+     *
+     * @param id continuous number of the chunk
+     * @param bits the compressed chunk
+     * @return the decompressed chunk
+     */
+    private static Decoded decompress(long id, long[] bits) {
+        Decoded d = new Decoded(id);
+        BitReader in = new BitReader(bits);
+        boolean integers = in.read(1) != 0;
+        XorState xs = new XorState();
+        XorState ys = new XorState();
+        d.x[0] = Double.longBitsToDouble(xs.read(in));
+        d.y[0] = Double.longBitsToDouble(ys.read(in));
+        long previousX = (long) d.x[0];
+        long previousDelta = 0;
+        for (int i = 1; i < CHUNK_SIZE; i++) {
+            if (integers) {
+                long dod;
+                if (in.read(1) == 0) {
+                    dod = 0;
+                } else if (in.read(1) == 0) {
+                    dod = in.readSigned(7);
+                } else if (in.read(1) == 0) {
+                    dod = in.readSigned(9);
+                } else if (in.read(1) == 0) {
+                    dod = in.readSigned(12);
+                } else {
+                    dod = in.read(64);
+                }
+                previousDelta += dod;
+                previousX += previousDelta;
+                d.x[i] = previousX;
+            } else {
+                d.x[i] = Double.longBitsToDouble(xs.read(in));
+            }
+            d.y[i] = Double.longBitsToDouble(ys.read(in));
+        }
+        return d;
+    }
+}
@@ -0,0 +1,613 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads the data of a series from a CSV file or
+ * from the binary format of {@link com.jjoe64.graphview.series.PrimitiveDataStorage#write(DataStorage, java.nio.channels.WritableByteChannel)}
+ * in the background.
+ *
+ * The CSV file is parsed in chunks directly into a
+ * {@link com.jjoe64.graphview.series.PrimitiveDataStorage},
+ * without creating strings or data point objects.
+ * While loading, the data that was parsed so far is shown
+ * in the series, so the chart appears immediately
+ * and fills in.
+ *
+ * The first part replaces the data of the series, the following
+ * parts are appended, so the caches of the series are only extended.
+ *
+ * Lines where the x- or y-column is not a number (e.g. a header)
+ * are skipped. The x-values have to be sorted (ASC).
+ * Do not modify the series while it is loading, e.g. appending data
+ * would break the order of the x-values.
+ * Starting another loading cancels the current one.
+ *
+ * Example:
+ * <pre>
+ * {@code
+ *  LineGraphSeries<DataPoint> series = new LineGraphSeries<DataPoint>();
+ *  graph.addSeries(series);
+ *  DataLoader loader = new DataLoader(series);
+ *  loader.setColumns(0, 2);
+ *  loader.loadCsv(new File(dir, "session.csv"));
+ * }
+ * </pre>
+ *
+ * @author jjoe64
+ */
+public class DataLoader {
+    /**
+     * listener for the end of the loading.
+     * Called on the UI thread.
+     */
+    public interface OnLoadListener {
+        /**
+         * called when all data was loaded and set to the series
+         *
+         * @param count count of data points
+         */
+        public void onLoaded(int count);
+
+        /**
+         * called when the data could not be loaded.
+         * The series keeps the data that was loaded so far.
+         *
+         * @param e the error
+         */
+        public void onError(IOException e);
+    }
+
+    /**
+     * size of the chunks that are read
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * min time between two updates of the series while loading
+     */
+    private static final long PUBLISH_INTERVAL_NS = 200 * 1000000L;
+
+    /**
+     * exact powers of 10 as double
+     */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * charset for the numbers
+     */
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * default executor, one background thread for all loaders
+     */
+    private static ExecutorService sDefaultExecutor;
+
+    /**
+     * the series that gets the data
+     */
+    private final BaseSeries<DataPoint> mSeries;
+
+    /**
+     * to publish the data on the UI thread
+     */
+    private final Handler mHandler;
+
+    /**
+     * executor for the loading
+     */
+    private Executor mExecutor;
+
+    /**
+     * separator of the columns in the CSV file
+     */
+    private byte mSeparator = ',';
+
+    /**
+     * index of the x- and y-column in the CSV file
+     */
+    private int mColumnX = 0;
+    private int mColumnY = 1;
+
+    /**
+     * listener for the end of the loading
+     */
+    private OnLoadListener mOnLoadListener;
+
+    /**
+     * number of the current loading. It is increased when a loading
+     * is started or cancelled, so a loading that is still running
+     * in the background does not publish its data anymore.
+     */
+    private volatile int mGeneration;
+
+    /**
+     * creates a loader for a series
+     *
+     * @param series the series that gets the data
+     */
+    public DataLoader(BaseSeries<DataPoint> series) {
+        mSeries = series;
+        mHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * @param executor executor for the loading.
+     *                 By default one background thread is used for all loaders.
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * @param separator separator of the columns in the CSV file, default is ','
+     */
+    public void setSeparator(char separator) {
+        mSeparator = (byte) separator;
+    }
+
+    /**
+     * @param columnX index of the column with the x-values, default is 0
+     * @param columnY index of the column with the y-values, default is 1
+     */
+    public void setColumns(int columnX, int columnY) {
+        mColumnX = columnX;
+        mColumnY = columnY;
+    }
+
+    /**
+     * @param listener listener for the end of the loading
+     */
+    public void setOnLoadListener(OnLoadListener listener) {
+        mOnLoadListener = listener;
+    }
+
+    /**
+     * cancels the loading. The series keeps the
+     * data that was loaded so far.
+     * Call this on the UI thread.
+     */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    /**
+     * loads a CSV file in the background
+     *
+     * @param file the file
+     */
+    public void loadCsv(final File file) {
+        start(new Loading() {
+            @Override
+            public int load(int generation) throws IOException {
+                InputStream in = new FileInputStream(file);
+                try {
+                    return parseCsv(in, generation);
+                } finally {
+                    in.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * loads CSV data in the background.
+     * The stream will be closed.
+     *
+     * @param in the stream, e.g. of a raw resource
+     */
+    public void loadCsv(final InputStream in) {
+        start(new Loading() {
+            @Override
+            public int load(int generation) throws IOException {
+                try {
+                    return parseCsv(in, generation);
+                } finally {
+                    in.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * loads a file that was written via {@link com.jjoe64.graphview.series.BaseSeries#writeData(java.nio.channels.WritableByteChannel)}
+     * in the background.
+     *
+     * @param file the file
+     */
+    public void loadBinary(final File file) {
+        start(new Loading() {
+            @Override
+            public int load(int generation) throws IOException {
+                FileInputStream in = new FileInputStream(file);
+                try {
+                    PrimitiveDataStorage storage = PrimitiveDataStorage.read(in.getChannel());
+                    publish(storage, true, generation);
+                    return storage.size();
+                } finally {
+                    in.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * loads data in the binary format in the background.
+     * The stream will be closed.
+     *
+     * @param in the stream
+     */
+    public void loadBinary(final InputStream in) {
+        start(new Loading() {
+            @Override
+            public int load(int generation) throws IOException {
+                try {
+                    PrimitiveDataStorage storage = PrimitiveDataStorage.read(Channels.newChannel(in));
+                    publish(storage, true, generation);
+                    return storage.size();
+                } finally {
+                    in.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * the work of a loading
+     */
+    private interface Loading {
+        /**
+         * @param generation number of the loading
+         * @return count of data points
+         */
+        int load(int generation) throws IOException;
+    }
+
+    /**
+     * runs a loading in the background and
+     * calls the listener. A loading that is still
+     * running is cancelled, only the data of the
+     * latest loading is set to the series.
+     */
+    private void start(final Loading loading) {
+        // a loading that is still running is cancelled
+        final int generation = ++mGeneration;
+        Executor executor = mExecutor != null ? mExecutor : getDefaultExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final int count = loading.load(generation);
+                    if (generation == mGeneration) {
+                        mHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (generation == mGeneration && mOnLoadListener != null) {
+                                    mOnLoadListener.onLoaded(count);
+                                }
+                            }
+                        });
+                    }
+                } catch (final IOException e) {
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (generation == mGeneration && mOnLoadListener != null) {
+                                mOnLoadListener.onError(e);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the default executor
+     */
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "GraphView DataLoader");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return sDefaultExecutor;
+    }
+
+    /**
+     * passes data to the series on the UI thread.
+     * The storage must not be used by the loading thread afterwards.
+     *
+     * @param data the loaded data
+     * @param replace true => the storage replaces the data of the series,
+     *                false => the values are copied to the storage of the series,
+     *                so the caches of the series are updated incrementally
+     * @param generation number of the loading, the data is dropped if
+     *                   the loading was cancelled or another one was started
+     */
+    private void publish(final PrimitiveDataStorage data, final boolean replace, final int generation) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    // cancelled or replaced by another loading
+                    return;
+                }
+                if (replace) {
+                    mSeries.setStorage(data);
+                } else {
+                    // the order was checked while parsing
+                    mSeries.appendData(data, true, false, Integer.MAX_VALUE);
+                }
+            }
+        });
+    }
+
+    /**
+     * parses CSV data in chunks
+     *
+     * @param in the data
+     * @param generation number of the loading, stops when it is not current anymore
+     * @return count of data points
+     */
+    private int parseCsv(InputStream in, int generation) throws IOException {
+        // the data since the last publish
+        PrimitiveDataStorage storage = new PrimitiveDataStorage(BUFFER_SIZE);
+        boolean published = false;
+        int count = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length = 0;
+        int lineNumber = 0;
+        double lastX = Double.NEGATIVE_INFINITY;
+        long lastPublish = System.nanoTime();
+        boolean end = false;
+
+        while (!end && generation == mGeneration) {
+            if (length == buffer.length) {
+                // a line is longer than the buffer
+                byte[] bigger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, bigger, 0, length);
+                buffer = bigger;
+            }
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                end = true;
+                if (length > 0 && buffer[length - 1] != '\n') {
+                    // last line without line break
+                    if (length == buffer.length) {
+                        byte[] bigger = new byte[buffer.length + 1];
+                        System.arraycopy(buffer, 0, bigger, 0, length);
+                        buffer = bigger;
+                    }
+                    buffer[length++] = '\n';
+                }
+            } else {
+                length += read;
+            }
+
+            // parse the complete lines
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] != '\n') {
+                    continue;
+                }
+                lineNumber++;
+                int lineEnd = i;
+                if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+
+                // find the columns
+                double x = 0;
+                double y = 0;
+                boolean hasX = false;
+                boolean hasY = false;
+                int column = 0;
+                int fieldStart = lineStart;
+                for (int p = lineStart; p <= lineEnd; p++) {
+                    if (p == lineEnd || buffer[p] == mSeparator) {
+                        if (column == mColumnX) {
+                            x = parseNumber(buffer, fieldStart, p);
+                            hasX = !Double.isNaN(x);
+                        }
+                        if (column == mColumnY) {
+                            y = parseNumber(buffer, fieldStart, p);
+                            hasY = !Double.isNaN(y);
+                        }
+                        column++;
+                        fieldStart = p + 1;
+                    }
+                }
+
+                if (hasX && hasY) {
+                    if (x < lastX) {
+                        throw new IOException("x-values have to be ordered ASC. Line "+lineNumber);
+                    }
+                    lastX = x;
+                    storage.add(x, y);
+                    count++;
+                }
+                lineStart = i + 1;
+            }
+
+            // keep the incomplete line
+            System.arraycopy(buffer, lineStart, buffer, 0, length - lineStart);
+            length -= lineStart;
+
+            long now = System.nanoTime();
+            if (!end && now - lastPublish > PUBLISH_INTERVAL_NS && storage.size() > 0) {
+                lastPublish = now;
+                publish(storage, !published, generation);
+                published = true;
+                storage = new PrimitiveDataStorage(BUFFER_SIZE);
+            }
+        }
+
+        if (!published || storage.size() > 0) {
+            publish(storage, !published, generation);
+        }
+        return count;
+    }
+
+    /**
+     * parses data points in the format "X=Y;X=Y;..." e.g. "0=5.0;1=5;2=4;3=9"
+     * directly into a storage, without creating strings or data
+     * point objects for the data points.
+     *
+     * @param data the data
+     * @return a storage with the data points
+     * @throws IllegalArgumentException if the format is broken or
+     *          the x-values are not sorted (ASC)
+     */
+    public static PrimitiveDataStorage parsePairs(String data) {
+        byte[] b = data.getBytes(ASCII);
+        PrimitiveDataStorage storage = new PrimitiveDataStorage();
+        double lastX = Double.NEGATIVE_INFINITY;
+        int start = 0;
+        while (start < b.length) {
+            int end = start;
+            int equals = -1;
+            while (end < b.length && b[end] != ';') {
+                if (b[end] == '=' && equals < 0) {
+                    equals = end;
+                }
+                end++;
+            }
+            if (equals < 0) {
+                throw new IllegalArgumentException("missing '=' at position "+start);
+            }
+            double x = parseNumber(b, start, equals);
+            double y = parseNumber(b, equals + 1, end);
+            if (Double.isNaN(x) || Double.isNaN(y)) {
+                throw new IllegalArgumentException("not a number at position "+start);
+            }
+            if (x < lastX) {
+                throw new IllegalArgumentException("x-values have to be ordered ASC. Position "+start);
+            }
+            lastX = x;
+            storage.add(x, y);
+            start = end + 1;
+        }
+        return storage;
+    }
+
+    /**
+     * parses a decimal number like 12, -1.5 or 3.2e-4 without
+     * creating objects. Numbers that can not be converted exactly
+     * via the fast path are parsed via {@link Double#parseDouble(String)}.
+     *
+     * @param b the bytes
+     * @param from first byte of the number
+     * @param to end of the number (exclusive)
+     * @return the number or NaN if it is not a number
+     */
+    private static double parseNumber(byte[] b, int from, int to) {
+        // trim spaces and quotes
+        while (from < to && (b[from] == ' ' || b[from] == '"')) from++;
+        while (to > from && (b[to - 1] == ' ' || b[to - 1] == '"')) to--;
+
+        int p = from;
+        boolean negative = false;
+        if (p < to && (b[p] == '-' || b[p] == '+')) {
+            negative = b[p] == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        for (; p < to && b[p] >= '0' && b[p] <= '9'; p++) {
+            anyDigit = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (b[p] - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+            }
+        }
+        if (p < to && b[p] == '.') {
+            p++;
+            for (; p < to && b[p] >= '0' && b[p] <= '9'; p++) {
+                anyDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b[p] - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+            }
+        }
+        if (!anyDigit) {
+            return Double.NaN;
+        }
+        if (p < to && (b[p] == 'e' || b[p] == 'E')) {
+            p++;
+            boolean negativeExponent = false;
+            if (p < to && (b[p] == '-' || b[p] == '+')) {
+                negativeExponent = b[p] == '-';
+                p++;
+            }
+            int e = 0;
+            boolean anyExponentDigit = false;
+            for (; p < to && b[p] >= '0' && b[p] <= '9'; p++) {
+                anyExponentDigit = true;
+                if (e < 10000) e = e * 10 + (b[p] - '0');
+            }
+            if (!anyExponentDigit) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (p != to) {
+            return Double.NaN;
+        }
+
+        if (digits > 15 || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(new String(b, from, to - from, ASCII));
+        }
+        // exact: the mantissa and the power of 10 are exact doubles
+        double value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        return negative ? -value : value;
+    }
+}
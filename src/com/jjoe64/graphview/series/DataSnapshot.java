@@ -0,0 +1,143 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Immutable view of the data of a series with
+ * the version of the data.
+ * A snapshot is cheap, the data is not copied. It
+ * stays valid and consistent when the series is modified
+ * later, so it can be read from any thread without locking,
+ * e.g. to compute analytics in the background while
+ * the series is drawn.
+ *
+ * @see com.jjoe64.graphview.series.BaseSeries#snapshot()
+ * @author jjoe64
+ */
+public final class DataSnapshot<E extends DataPointInterface> implements DataStorage<E> {
+    /**
+     * view of the data
+     */
+    private final DataStorage<E> mData;
+
+    /**
+     * version of the data
+     */
+    private final long mVersion;
+
+    /**
+     * @param data immutable view of the data
+     * @param version version of the data
+     */
+    DataSnapshot(DataStorage<E> data, long version) {
+        mData = data;
+        mVersion = version;
+    }
+
+    /**
+     * @return the version of the data. Two snapshots of a
+     *          series with the same version contain the same data.
+     * @see com.jjoe64.graphview.series.BaseSeries#getDataVersion()
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    @Override
+    public int size() {
+        return mData.size();
+    }
+
+    @Override
+    public double getX(int index) {
+        return mData.getX(index);
+    }
+
+    @Override
+    public double getY(int index) {
+        return mData.getY(index);
+    }
+
+    @Override
+    public E get(int index) {
+        return mData.get(index);
+    }
+
+    @Override
+    public int findIndex(double x, boolean after) {
+        return mData.findIndex(x, after);
+    }
+
+    /**
+     * not supported, a snapshot is immutable
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(E dataPoint) {
+        throw new UnsupportedOperationException("DataSnapshot is immutable");
+    }
+
+    /**
+     * not supported, a snapshot is immutable
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addAll(DataStorage<E> data, int from, int to) {
+        throw new UnsupportedOperationException("DataSnapshot is immutable");
+    }
+
+    /**
+     * not supported, a snapshot is immutable
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeFirst(int count) {
+        throw new UnsupportedOperationException("DataSnapshot is immutable");
+    }
+
+    /**
+     * not supported, a snapshot is immutable
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("DataSnapshot is immutable");
+    }
+
+    /**
+     * @return true, a snapshot can not be modified
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * @return this, a snapshot is immutable
+     */
+    @Override
+    public DataStorage<E> snapshot() {
+        return this;
+    }
+}
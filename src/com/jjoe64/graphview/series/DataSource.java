@@ -0,0 +1,77 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Data provider that loads the data of a series
+ * lazily for the visible range of the viewport.
+ * Use this if the data is too big to keep it
+ * completely in memory, e.g. if it is stored in a database.
+ *
+ * The series requests the data for the visible range (plus
+ * a margin) at the resolution of the graph via {@link #loadData(double, double, int, Callback)}.
+ * Until the data arrives the series shows the data that
+ * was loaded before.
+ *
+ * @see com.jjoe64.graphview.series.BaseSeries#setDataSource(DataSource)
+ * @author jjoe64
+ */
+public interface DataSource<E extends DataPointInterface> {
+    /**
+     * callback to deliver the loaded data
+     */
+    public interface Callback<E extends DataPointInterface> {
+        /**
+         * delivers the loaded data. Can be called from any thread.
+         *
+         * @param data  the data for the requested range, sorted by the x-values.
+         *              The storage must not be modified after it was delivered.
+         */
+        public void onDataLoaded(DataStorage<E> data);
+    }
+
+    /**
+     * @return the lowest x-value of all data
+     */
+    public double getLowestValueX();
+
+    /**
+     * @return the highest x-value of all data
+     */
+    public double getHighestValueX();
+
+    /**
+     * loads the data for a range. This is called on the
+     * UI thread, so it has to return immediately and load
+     * the data in the background.
+     * It is recommended to include one data point before
+     * and one after the range, so the lines to the border
+     * of the viewport can be drawn.
+     *
+     * @param from minimal x-value
+     * @param until maximal x-value
+     * @param resolution    the count of pixels of the range. It is enough to
+     *                      load about 2 data points per pixel, e.g.
+     *                      the min and max of the values that are
+     *                      in the x-range of a pixel.
+     * @param callback callback to deliver the data
+     */
+    public void loadData(double from, double until, int resolution, Callback<E> callback);
+}
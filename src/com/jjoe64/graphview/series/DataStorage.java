@@ -0,0 +1,125 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Storage backend for {@link com.jjoe64.graphview.series.BaseSeries}.
+ * The series accesses its data only via the index
+ * based methods of this interface, so the data
+ * can be stored in a different layout than a list
+ * of data point objects.
+ *
+ * The data has to be sorted by the x-values (ASC).
+ * The storage does not check the order, this is
+ * done by the series.
+ *
+ * @author jjoe64
+ * @see com.jjoe64.graphview.series.AbstractDataStorage
+ * @see com.jjoe64.graphview.series.ObjectDataStorage
+ * @see com.jjoe64.graphview.series.PrimitiveDataStorage
+ */
+public interface DataStorage<E extends DataPointInterface> {
+    /**
+     * @return the count of data points
+     */
+    public int size();
+
+    /**
+     * @param index index of the data point
+     * @return the x-value of the data point
+     */
+    public double getX(int index);
+
+    /**
+     * @param index index of the data point
+     * @return the y-value of the data point
+     */
+    public double getY(int index);
+
+    /**
+     * get the data point object. Storages that do not
+     * store the objects will create a new one, so
+     * prefer {@link #getX(int)} and {@link #getY(int)}.
+     *
+     * @param index index of the data point
+     * @return the data point
+     */
+    public E get(int index);
+
+    /**
+     * finds the index of a x-value, e.g. via binary search.
+     * Use {@link com.jjoe64.graphview.series.AbstractDataStorage}
+     * for a binary search.
+     *
+     * @param x the x-value
+     * @param after false => index of the first data point with a x-value bigger or equal than x
+     *              true => index of the first data point with a x-value bigger than x
+     * @return the index or the count of data points if there is no such data point
+     */
+    public int findIndex(double x, boolean after);
+
+    /**
+     * appends a data point at the end
+     *
+     * @param dataPoint the data point
+     */
+    public void add(E dataPoint);
+
+    /**
+     * appends a range of the data points of another storage at the end.
+     * Use {@link com.jjoe64.graphview.series.AbstractDataStorage}
+     * to add them one by one.
+     *
+     * @param data the storage with the data points
+     * @param from index of the first data point
+     * @param to index after the last data point (exclusive)
+     */
+    public void addAll(DataStorage<E> data, int from, int to);
+
+    /**
+     * removes the oldest data points
+     *
+     * @param count count of data points to remove
+     */
+    public void removeFirst(int count);
+
+    /**
+     * removes all data points
+     */
+    public void clear();
+
+    /**
+     * @return true if data points can not be added, e.g. because
+     *          the data is read from a file. The series checks this
+     *          before it changes anything.
+     */
+    public boolean isReadOnly();
+
+    /**
+     * creates an immutable view of the current data.
+     * The view stays valid when the storage is modified later,
+     * so it can be read from other threads without locking.
+     * This has to be cheap, the data should not be copied.
+     * Call this on the thread that modifies the storage.
+     *
+     * @return a view of the data that will not change
+     */
+    public DataStorage<E> snapshot();
+}
@@ -0,0 +1,443 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Multi-resolution min/max pyramid to draw
+ * big data sets with a cost that depends on the
+ * width of the graph and not on the count of data points.
+ *
+ * Level l groups the data points into buckets of
+ * 2^(BASE_SHIFT+l) values and keeps the position of the
+ * lowest and the highest value of each bucket.
+ * Drawing only these two data points per bucket
+ * keeps the peaks of the data.
+ *
+ * The buckets are identified by the continuous index
+ * of the data points and are stored as circular buffer,
+ * so the pyramid is updated in O(levels) when data is
+ * appended and removing data from the beginning does
+ * not need any update.
+ *
+ * To limit the memory, the lowest level is chosen so that it has at most
+ * {@link #MAX_INITIAL_BUCKETS} buckets when the pyramid is created,
+ * about 24 bytes per bucket. Finer levels are not stored, the
+ * data points are scanned directly for them. That is only
+ * needed when a smaller part of the data is visible.
+ *
+ * @author jjoe64
+ */
+final class DetailPyramid {
+    /**
+     * count of data points per bucket of the first level as power of 2
+     */
+    static final int BASE_SHIFT = 3;
+
+    /**
+     * max count of buckets of the lowest level when the
+     * pyramid is created. For more data points the
+     * buckets are bigger.
+     */
+    private static final int MAX_INITIAL_BUCKETS = 1 << 12;
+
+    /**
+     * a new level is added when the highest level
+     * has more buckets
+     */
+    private static final int MAX_TOP_BUCKETS = 64;
+
+    /**
+     * initial count of buckets of a level
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * the buckets of one level
+     */
+    private static final class Level {
+        /**
+         * count of data points per bucket as power of 2
+         */
+        final int shift;
+
+        /**
+         * count of buckets, always a power of 2
+         */
+        int capacity;
+
+        /**
+         * lowest/highest value of the buckets
+         */
+        double[] min, max;
+
+        /**
+         * position of the lowest/highest value in the bucket
+         */
+        int[] minOffset, maxOffset;
+
+        /**
+         * first bucket that contains data
+         */
+        long firstBucket;
+
+        /**
+         * bucket of the last added value
+         */
+        long lastBucket = -1;
+
+        Level(int shift, long firstBucket, int capacity) {
+            this.shift = shift;
+            this.firstBucket = firstBucket;
+            init(capacity);
+        }
+
+        private void init(int capacity) {
+            this.capacity = capacity;
+            min = new double[capacity];
+            max = new double[capacity];
+            minOffset = new int[capacity];
+            maxOffset = new int[capacity];
+        }
+
+        /**
+         * merges the lowest and highest value of a
+         * range into a bucket
+         *
+         * @param bucket the bucket, not before the last bucket
+         */
+        void put(long bucket, int minOff, double minValue, int maxOff, double maxValue) {
+            if (bucket - firstBucket >= capacity) {
+                grow(bucket - firstBucket + 1);
+            }
+            int p = (int) (bucket & (capacity - 1));
+            if (bucket != lastBucket) {
+                // first value of the bucket, it may hold an old bucket
+                lastBucket = bucket;
+                min[p] = minValue;
+                max[p] = maxValue;
+                minOffset[p] = minOff;
+                maxOffset[p] = maxOff;
+            } else {
+                if (minValue < min[p]) {
+                    min[p] = minValue;
+                    minOffset[p] = minOff;
+                }
+                if (maxValue > max[p]) {
+                    max[p] = maxValue;
+                    maxOffset[p] = maxOff;
+                }
+            }
+        }
+
+        /**
+         * increases the capacity and moves the
+         * buckets that still contain data.
+         *
+         * @param buckets the needed count of buckets
+         */
+        private void grow(long buckets) {
+            double[] oldMin = min;
+            double[] oldMax = max;
+            int[] oldMinOffset = minOffset;
+            int[] oldMaxOffset = maxOffset;
+            int oldCapacity = capacity;
+            int newCapacity = capacity;
+            while (newCapacity < buckets) {
+                newCapacity *= 2;
+            }
+            init(newCapacity);
+            for (long b = firstBucket; b <= lastBucket; b++) {
+                int from = (int) (b & (oldCapacity - 1));
+                int to = (int) (b & (newCapacity - 1));
+                min[to] = oldMin[from];
+                max[to] = oldMax[from];
+                minOffset[to] = oldMinOffset[from];
+                maxOffset[to] = oldMaxOffset[from];
+            }
+        }
+    }
+
+    /**
+     * the levels, lowest first
+     */
+    private Level[] mLevels = new Level[8];
+
+    /**
+     * count of used levels
+     */
+    private int mLevelCount;
+
+    /**
+     * the level of mLevels[0], see {@link #getLevel(int, int)}
+     */
+    private final int mBaseLevel;
+
+    /**
+     * creates an empty pyramid
+     *
+     * @param firstIndex the continuous index of the first data point that will be added
+     * @param count the count of data points that will be added initially.
+     *              this is used to limit the count of buckets.
+     */
+    DetailPyramid(long firstIndex, int count) {
+        int shift = BASE_SHIFT;
+        while ((count >> shift) > MAX_INITIAL_BUCKETS) {
+            shift++;
+        }
+        mBaseLevel = shift - BASE_SHIFT;
+        mLevels[0] = new Level(shift, firstIndex >> shift, INITIAL_CAPACITY);
+        mLevelCount = 1;
+    }
+
+    /**
+     * adds a value at the end.
+     *
+     * @param index continuous index of the data point
+     * @param value y-value, NaN for a gap
+     */
+    void add(long index, double value) {
+        double min = value;
+        double max = value;
+        if (Double.isNaN(value)) {
+            // gap, only counts if the bucket has no other value
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+        }
+        for (int l = 0; l < mLevelCount; l++) {
+            Level level = mLevels[l];
+            long bucket = index >> level.shift;
+            int offset = (int) (index - (bucket << level.shift));
+            level.put(bucket, offset, min, offset, max);
+        }
+        Level top = mLevels[mLevelCount - 1];
+        if (top.lastBucket - top.firstBucket >= MAX_TOP_BUCKETS) {
+            addLevel(top);
+        }
+    }
+
+    /**
+     * adds a level with buckets that are twice as big
+     * as the buckets of the highest level.
+     *
+     * @param top the highest level
+     */
+    private void addLevel(Level top) {
+        Level level = new Level(top.shift + 1, top.firstBucket >> 1, INITIAL_CAPACITY);
+        for (long b = top.firstBucket; b <= top.lastBucket; b++) {
+            int p = (int) (b & (top.capacity - 1));
+            int base = (int) (b & 1) << top.shift;
+            level.put(b >> 1, base + top.minOffset[p], top.min[p], base + top.maxOffset[p], top.max[p]);
+        }
+        if (mLevelCount == mLevels.length) {
+            Level[] levels = new Level[mLevelCount * 2];
+            System.arraycopy(mLevels, 0, levels, 0, mLevelCount);
+            mLevels = levels;
+        }
+        mLevels[mLevelCount++] = level;
+    }
+
+    /**
+     * marks the data points before the index
+     * as removed.
+     *
+     * @param index continuous index of the first data point that is still available
+     */
+    void removeBefore(long index) {
+        for (int l = 0; l < mLevelCount; l++) {
+            mLevels[l].firstBucket = index >> mLevels[l].shift;
+        }
+    }
+
+    /**
+     * get the level that is needed to draw a
+     * range of data points.
+     * With that level 2 to 4 data points per pixel are drawn.
+     *
+     * @param count count of data points in the range
+     * @param width width of the range in pixel
+     * @return the level or -1 if all data points should be drawn
+     */
+    static int getLevel(int count, int width) {
+        int perPixel = count / Math.max(width, 1);
+        if (perPixel < (1 << BASE_SHIFT)) {
+            return -1;
+        }
+        return 31 - Integer.numberOfLeadingZeros(perPixel) - BASE_SHIFT;
+    }
+
+    /**
+     * get the level that {@link #select(DataStorage, long, int, int, int, int[])}
+     * really uses. If the level does not exist yet, the highest
+     * level is used, which has smaller buckets.
+     *
+     * @param level the needed level, see {@link #getLevel(int, int)}
+     * @return the used level, use it for {@link #getMaxSelection(int, int)}
+     */
+    int getUsedLevel(int level) {
+        return Math.min(level, mBaseLevel + mLevelCount - 1);
+    }
+
+    /**
+     * the max count of data points that
+     * {@link #select(DataStorage, long, int, int, int, int[])} returns.
+     *
+     * @param count count of data points in the range
+     * @param level the level
+     * @return max count of data points
+     */
+    static int getMaxSelection(int count, int level) {
+        int bucketSize = 1 << (BASE_SHIFT + level);
+        return 2 * bucketSize + 2 * (count / bucketSize) + 4;
+    }
+
+    /**
+     * selects the data points that have to be drawn.
+     * These are the first and the last data point of the
+     * range, the lowest and highest data point of every
+     * bucket and the data points of the incomplete buckets
+     * at the border of the range.
+     *
+     * @param data the storage, used for the levels that are finer than the lowest level
+     * @param firstIndex continuous index of the data point at position 0 in the storage
+     * @param from index in the storage of the first data point of the range
+     * @param to index in the storage after the last data point of the range (exclusive)
+     * @param level the level, see {@link #getLevel(int, int)}. If the level
+     *              does not exist yet, the highest level will be used.
+     * @param out the selected indexes in the storage, ordered ASC.
+     *            See {@link #getMaxSelection(int, int)} for the needed size.
+     * @return count of selected data points
+     */
+    int select(DataStorage<?> data, long firstIndex, int from, int to, int level, int[] out) {
+        if (level < mBaseLevel) {
+            return scan(data, firstIndex, from, to, BASE_SHIFT + level, out);
+        }
+        int n = 0;
+        if (from >= to) {
+            return n;
+        }
+        out[n++] = from;
+
+        Level lv = mLevels[Math.min(level - mBaseLevel, mLevelCount - 1)];
+        int shift = lv.shift;
+
+        // the data points between the first and the last one
+        long begin = firstIndex + from + 1;
+        long end = firstIndex + to - 1;
+        long firstBucket = (begin + (1L << shift) - 1) >> shift;
+        long lastBucket = (end >> shift) - 1;
+
+        if (firstBucket > lastBucket) {
+            for (int i = from + 1; i < to - 1; i++) {
+                out[n++] = i;
+            }
+        } else {
+            int firstFull = (int) ((firstBucket << shift) - firstIndex);
+            for (int i = from + 1; i < firstFull; i++) {
+                out[n++] = i;
+            }
+            for (long b = firstBucket; b <= lastBucket; b++) {
+                int p = (int) (b & (lv.capacity - 1));
+                int base = (int) ((b << shift) - firstIndex);
+                int i1 = base + lv.minOffset[p];
+                int i2 = base + lv.maxOffset[p];
+                if (i1 > i2) {
+                    int t = i1;
+                    i1 = i2;
+                    i2 = t;
+                }
+                out[n++] = i1;
+                if (i2 != i1) {
+                    out[n++] = i2;
+                }
+            }
+            int lastFull = (int) (((lastBucket + 1) << shift) - firstIndex);
+            for (int i = lastFull; i < to - 1; i++) {
+                out[n++] = i;
+            }
+        }
+
+        if (to - 1 > from) {
+            out[n++] = to - 1;
+        }
+        return n;
+    }
+
+    /**
+     * selects the data points like {@link #select(DataStorage, long, int, int, int, int[])},
+     * but calculates the buckets by scanning the data points of the range.
+     *
+     * @param shift count of data points per bucket as power of 2
+     * @return count of selected data points
+     */
+    private static int scan(DataStorage<?> data, long firstIndex, int from, int to, int shift, int[] out) {
+        int n = 0;
+        if (from >= to) {
+            return n;
+        }
+        out[n++] = from;
+
+        long bucket = -1;
+        int lowest = -1, highest = -1;
+        double lowestY = 0, highestY = 0;
+        for (int i = from + 1; i < to - 1; i++) {
+            double y = data.getY(i);
+            long b = (firstIndex + i) >> shift;
+            if (b != bucket) {
+                n = addBucket(out, n, lowest, highest);
+                bucket = b;
+                lowest = highest = i;
+                // a gap is only used if the bucket has no other value
+                lowestY = Double.isNaN(y) ? Double.POSITIVE_INFINITY : y;
+                highestY = Double.isNaN(y) ? Double.NEGATIVE_INFINITY : y;
+            } else {
+                if (y < lowestY) {
+                    lowestY = y;
+                    lowest = i;
+                }
+                if (y > highestY) {
+                    highestY = y;
+                    highest = i;
+                }
+            }
+        }
+        n = addBucket(out, n, lowest, highest);
+
+        if (to - 1 > from) {
+            out[n++] = to - 1;
+        }
+        return n;
+    }
+
+    /**
+     * adds the lowest and highest data point of a bucket in ASC order
+     *
+     * @return the new count of selected data points
+     */
+    private static int addBucket(int[] out, int n, int lowest, int highest) {
+        if (lowest < 0) {
+            return n;
+        }
+        out[n++] = Math.min(lowest, highest);
+        if (lowest != highest) {
+            out[n++] = Math.max(lowest, highest);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,321 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Storage for data with a fixed sample rate, where
+ * the x-value of a data point is x0 + i * dx.
+ * Only the y-values are stored, as doubles or floats.
+ * The series finds the visible range via arithmetic
+ * instead of a binary search.
+ *
+ * The y-values are stored as circular buffer, so
+ * removing the oldest data points does not move the other
+ * data. The x-values of the remaining data points do not change.
+ *
+ * Example:
+ * <pre>
+ * {@code
+ *  // 100 Hz, starting at 0 seconds
+ *  FixedIntervalDataStorage storage = new FixedIntervalDataStorage(0, 0.01);
+ *  storage.add(value);
+ *  LineGraphSeries<DataPoint> series = new LineGraphSeries<DataPoint>(storage);
+ * }
+ * </pre>
+ *
+ * @author jjoe64
+ */
+public class FixedIntervalDataStorage extends AbstractDataStorage<DataPoint> {
+    /**
+     * initial capacity of the arrays
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * value of {@link #mSharedFrom} if there is no snapshot
+     */
+    private static final long NOT_SHARED = Long.MAX_VALUE;
+
+    /**
+     * x-value of the first data point that was added
+     */
+    private final double mX0;
+
+    /**
+     * distance of the x-values
+     */
+    private final double mDx;
+
+    /**
+     * y-values as doubles, null if floats are used
+     */
+    private double[] mY;
+
+    /**
+     * y-values as floats, null if doubles are used
+     */
+    private float[] mYFloat;
+
+    /**
+     * capacity of the array
+     */
+    private int mCapacity;
+
+    /**
+     * position of the first value in the array
+     */
+    private int mHead;
+
+    /**
+     * count of the used values in the array
+     */
+    private int mSize;
+
+    /**
+     * count of values that were removed from the beginning.
+     * This is the continuous index of the first value,
+     * so it is used to calculate the x-values.
+     */
+    private long mRemoved;
+
+    /**
+     * continuous index of the first value that is
+     * used by a snapshot. The array is copied before such
+     * a value is overwritten.
+     */
+    private long mSharedFrom = NOT_SHARED;
+
+    /**
+     * creates an empty storage that stores
+     * the y-values as doubles
+     *
+     * @param x0 x-value of the first data point
+     * @param dx distance of the x-values, greater than 0
+     */
+    public FixedIntervalDataStorage(double x0, double dx) {
+        this(x0, dx, false);
+    }
+
+    /**
+     * creates an empty storage
+     *
+     * @param x0 x-value of the first data point
+     * @param dx distance of the x-values, greater than 0
+     * @param floatValues true => the y-values are stored as floats, this
+     *                    halves the memory but the values lose precision.
+     */
+    public FixedIntervalDataStorage(double x0, double dx, boolean floatValues) {
+        if (!(dx > 0)) {
+            throw new IllegalArgumentException("dx has to be greater than 0");
+        }
+        mX0 = x0;
+        mDx = dx;
+        mCapacity = DEFAULT_CAPACITY;
+        if (floatValues) {
+            mYFloat = new float[mCapacity];
+        } else {
+            mY = new double[mCapacity];
+        }
+    }
+
+    /**
+     * creates a view of the array for a snapshot
+     */
+    private FixedIntervalDataStorage(FixedIntervalDataStorage source) {
+        mX0 = source.mX0;
+        mDx = source.mDx;
+        mY = source.mY;
+        mYFloat = source.mYFloat;
+        mCapacity = source.mCapacity;
+        mHead = source.mHead;
+        mSize = source.mSize;
+        mRemoved = source.mRemoved;
+    }
+
+    /**
+     * @return x-value of the first data point that was added
+     */
+    public double getX0() {
+        return mX0;
+    }
+
+    /**
+     * @return distance of the x-values
+     */
+    public double getDx() {
+        return mDx;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public double getX(int index) {
+        return mX0 + (mRemoved + index) * mDx;
+    }
+
+    @Override
+    public double getY(int index) {
+        int p = mHead + index;
+        if (p >= mCapacity) p -= mCapacity;
+        return mY != null ? mY[p] : mYFloat[p];
+    }
+
+    @Override
+    public DataPoint get(int index) {
+        return new DataPoint(getX(index), getY(index));
+    }
+
+    /**
+     * appends a data point. The x-value has to be
+     * the next x-value of the interval.
+     *
+     * @param dataPoint the data point
+     * @throws IllegalArgumentException if the x-value does not match the interval
+     */
+    @Override
+    public void add(DataPoint dataPoint) {
+        double expected = getX(mSize);
+        if (Math.abs(dataPoint.getX() - expected) > mDx * 1e-6) {
+            throw new IllegalArgumentException("x-value does not match the fixed interval. Expected "+expected+" but was "+dataPoint.getX());
+        }
+        add(dataPoint.getY());
+    }
+
+    /**
+     * appends the y-value of the next data point
+     *
+     * @param y y-value
+     */
+    public void add(double y) {
+        if (mSize == mCapacity) {
+            resize(mCapacity * 2);
+        } else if (mRemoved + mSize - mCapacity >= mSharedFrom) {
+            // the position is used by a snapshot
+            resize(Math.max(mCapacity, mSize * 2));
+        }
+        int p = mHead + mSize;
+        if (p >= mCapacity) p -= mCapacity;
+        if (mY != null) {
+            mY[p] = y;
+        } else {
+            mYFloat[p] = (float) y;
+        }
+        mSize++;
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        mHead += count;
+        if (mHead >= mCapacity) mHead -= mCapacity;
+        mSize -= count;
+        mRemoved += count;
+    }
+
+    /**
+     * removes all data points. The next data point
+     * gets the first x-value again.
+     */
+    @Override
+    public void clear() {
+        mSize = 0;
+        if (mSharedFrom != NOT_SHARED) {
+            // the snapshot keeps the old array
+            resize(mCapacity);
+        }
+        mHead = 0;
+        mRemoved = 0;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * creates a view of the current data.
+     * The array is shared, it will be copied when values
+     * of the snapshot would be overwritten.
+     *
+     * @return a view of the data that will not change
+     */
+    @Override
+    public DataStorage<DataPoint> snapshot() {
+        if (mSharedFrom == NOT_SHARED) {
+            mSharedFrom = mRemoved;
+        }
+        return new FixedIntervalDataStorage(this);
+    }
+
+    /**
+     * finds a x-value via arithmetic.
+     *
+     * @param x the x-value
+     * @param after false => index of the first data point with a x-value bigger or equal than x
+     *              true => index of the first data point with a x-value bigger than x
+     * @return the index or the count of data points if there is no such data point
+     */
+    @Override
+    public int findIndex(double x, boolean after) {
+        double position = (x - mX0) / mDx - mRemoved;
+        int i;
+        if (!(position > 0)) {
+            i = 0;
+        } else if (position >= mSize) {
+            i = mSize;
+        } else {
+            i = (int) Math.ceil(position);
+        }
+        // correct rounding errors
+        while (i > 0 && (getX(i - 1) > x || (!after && getX(i - 1) == x))) {
+            i--;
+        }
+        while (i < mSize && (getX(i) < x || (after && getX(i) == x))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * copies the values into a new array.
+     * the data will start at position 0 again.
+     *
+     * @param capacity the new capacity
+     */
+    private void resize(int capacity) {
+        int firstPart = Math.min(mSize, mCapacity - mHead);
+        if (mY != null) {
+            double[] y = new double[capacity];
+            System.arraycopy(mY, mHead, y, 0, firstPart);
+            System.arraycopy(mY, 0, y, firstPart, mSize - firstPart);
+            mY = y;
+        } else {
+            float[] y = new float[capacity];
+            System.arraycopy(mYFloat, mHead, y, 0, firstPart);
+            System.arraycopy(mYFloat, 0, y, firstPart, mSize - firstPart);
+            mYFloat = y;
+        }
+        mCapacity = capacity;
+        mHead = 0;
+        mSharedFrom = NOT_SHARED;
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import android.util.Log;
+
+/**
+ * Storage that holds the values as floats, for data
+ * that is only displayed. This needs half the memory
+ * of {@link com.jjoe64.graphview.series.PrimitiveDataStorage}.
+ * The canvas draws with floats anyway.
+ *
+ * The x-values are stored relative to a double anchor
+ * (by default the first x-value), so big x-values like
+ * timestamps keep their precision as long as the range of
+ * the x-values is not too big.
+ * The max error of the stored values can be read
+ * via {@link #getMaxErrorX()} and {@link #getMaxErrorY()}.
+ *
+ * The arrays are used as circular buffer, so removing
+ * the oldest data points does not move the other data.
+ *
+ * @author jjoe64
+ */
+public class FloatDataStorage extends AbstractDataStorage<DataPoint> {
+    /**
+     * initial capacity of the arrays
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * value of {@link #mSharedFrom} if there is no snapshot
+     */
+    private static final long NOT_SHARED = Long.MAX_VALUE;
+
+    /**
+     * a warning is logged when the error is bigger than
+     * this part of the range of the values
+     */
+    private static final double MAX_RELATIVE_ERROR = 1e-5;
+
+    /**
+     * x-values relative to the anchor
+     */
+    private float[] mX;
+
+    /**
+     * y-values
+     */
+    private float[] mY;
+
+    /**
+     * the x-values are stored relative to this value.
+     * NaN until the first data point was added.
+     */
+    private double mAnchorX;
+
+    /**
+     * position of the first value in the arrays
+     */
+    private int mHead;
+
+    /**
+     * count of the used values in the arrays
+     */
+    private int mSize;
+
+    /**
+     * count of values that were removed from the
+     * beginning. This is the continuous index of the first
+     * value.
+     */
+    private long mRemoved;
+
+    /**
+     * continuous index of the first value that is
+     * used by a snapshot. The arrays are copied before such
+     * a value is overwritten.
+     */
+    private long mSharedFrom = NOT_SHARED;
+
+    /**
+     * max error of the stored values
+     */
+    private double mMaxErrorX, mMaxErrorY;
+
+    /**
+     * creates an empty storage. The first x-value
+     * will be the anchor.
+     */
+    public FloatDataStorage() {
+        this(Double.NaN);
+    }
+
+    /**
+     * creates an empty storage
+     *
+     * @param anchorX the x-values are stored relative to this value.
+     *                Use a value in the middle of the expected x-values.
+     */
+    public FloatDataStorage(double anchorX) {
+        mAnchorX = anchorX;
+        mX = new float[DEFAULT_CAPACITY];
+        mY = new float[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * creates a storage with data.
+     * The anchor is the middle of the x-values.
+     * Logs a warning if the values lose precision that
+     * could be visible.
+     *
+     * @param data  data points
+     *              important: array has to be sorted from lowest x-value to the highest
+     */
+    public FloatDataStorage(DataPointInterface[] data) {
+        mAnchorX = data.length > 0 ? (data[0].getX() + data[data.length - 1].getX()) / 2 : Double.NaN;
+        mX = new float[Math.max(data.length, 1)];
+        mY = new float[mX.length];
+        double lowestY = Double.POSITIVE_INFINITY;
+        double highestY = Double.NEGATIVE_INFINITY;
+        for (DataPointInterface d : data) {
+            add(d.getX(), d.getY());
+            lowestY = Math.min(lowestY, d.getY());
+            highestY = Math.max(highestY, d.getY());
+        }
+
+        if (data.length > 1) {
+            double rangeX = data[data.length - 1].getX() - data[0].getX();
+            if (mMaxErrorX > rangeX * MAX_RELATIVE_ERROR) {
+                Log.w("GraphView", "FloatDataStorage: x-values lose precision, max error "+mMaxErrorX);
+            }
+            if (mMaxErrorY > (highestY - lowestY) * MAX_RELATIVE_ERROR) {
+                Log.w("GraphView", "FloatDataStorage: y-values lose precision, max error "+mMaxErrorY);
+            }
+        }
+    }
+
+    /**
+     * creates a view of the arrays for a snapshot
+     */
+    private FloatDataStorage(FloatDataStorage source) {
+        mX = source.mX;
+        mY = source.mY;
+        mAnchorX = source.mAnchorX;
+        mHead = source.mHead;
+        mSize = source.mSize;
+        mRemoved = source.mRemoved;
+        mMaxErrorX = source.mMaxErrorX;
+        mMaxErrorY = source.mMaxErrorY;
+    }
+
+    /**
+     * @return the max difference of a stored x-value
+     *          to the original value
+     */
+    public double getMaxErrorX() {
+        return mMaxErrorX;
+    }
+
+    /**
+     * @return the max difference of a stored y-value
+     *          to the original value
+     */
+    public double getMaxErrorY() {
+        return mMaxErrorY;
+    }
+
+    /**
+     * @return the x-values are stored relative to this value
+     */
+    public double getAnchorX() {
+        return mAnchorX;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public double getX(int index) {
+        int p = mHead + index;
+        if (p >= mX.length) p -= mX.length;
+        return mAnchorX + mX[p];
+    }
+
+    @Override
+    public double getY(int index) {
+        int p = mHead + index;
+        if (p >= mY.length) p -= mY.length;
+        return mY[p];
+    }
+
+    @Override
+    public DataPoint get(int index) {
+        return new DataPoint(getX(index), getY(index));
+    }
+
+    @Override
+    public void add(DataPoint dataPoint) {
+        add(dataPoint.getX(), dataPoint.getY());
+    }
+
+    /**
+     * appends a value pair without creating
+     * a data point object.
+     *
+     * @param x x-value
+     * @param y y-value
+     */
+    public void add(double x, double y) {
+        if (mSize == mX.length) {
+            resize(mX.length * 2);
+        } else if (mRemoved + mSize - mX.length >= mSharedFrom) {
+            // the position is used by a snapshot
+            resize(Math.max(mX.length, mSize * 2));
+        }
+        if (Double.isNaN(mAnchorX)) {
+            mAnchorX = x;
+        }
+        float fx = (float) (x - mAnchorX);
+        float fy = (float) y;
+        // NaN values (gaps) are ignored
+        double errorX = Math.abs(mAnchorX + fx - x);
+        double errorY = Math.abs(fy - y);
+        if (errorX > mMaxErrorX) mMaxErrorX = errorX;
+        if (errorY > mMaxErrorY) mMaxErrorY = errorY;
+
+        int p = mHead + mSize;
+        if (p >= mX.length) p -= mX.length;
+        mX[p] = fx;
+        mY[p] = fy;
+        mSize++;
+    }
+
+    /**
+     * appends the value pairs without creating
+     * data point objects.
+     *
+     * @param data the storage with the data points
+     * @param from index of the first data point
+     * @param to index after the last data point (exclusive)
+     */
+    @Override
+    public void addAll(DataStorage<DataPoint> data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            add(data.getX(i), data.getY(i));
+        }
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        mHead += count;
+        if (mHead >= mX.length) mHead -= mX.length;
+        mSize -= count;
+        mRemoved += count;
+    }
+
+    @Override
+    public void clear() {
+        if (mSharedFrom == NOT_SHARED) {
+            mHead = 0;
+            mRemoved += mSize;
+            mSize = 0;
+        } else {
+            removeFirst(mSize);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * creates a view of the current data.
+     * The arrays are shared, they will be copied when values
+     * of the snapshot would be overwritten.
+     *
+     * @return a view of the data that will not change
+     */
+    @Override
+    public DataStorage<DataPoint> snapshot() {
+        if (mSharedFrom == NOT_SHARED) {
+            mSharedFrom = mRemoved;
+        }
+        return new FloatDataStorage(this);
+    }
+
+    /**
+     * copies the values into new arrays.
+     * the data will start at position 0 again.
+     *
+     * @param capacity the new capacity
+     */
+    private void resize(int capacity) {
+        float[] x = new float[capacity];
+        float[] y = new float[capacity];
+        int firstPart = Math.min(mSize, mX.length - mHead);
+        System.arraycopy(mX, mHead, x, 0, firstPart);
+        System.arraycopy(mX, 0, x, firstPart, mSize - firstPart);
+        System.arraycopy(mY, mHead, y, 0, firstPart);
+        System.arraycopy(mY, 0, y, firstPart, mSize - firstPart);
+        mX = x;
+        mY = y;
+        mHead = 0;
+        mSharedFrom = NOT_SHARED;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Sorted index of the gaps of a series.
+ * A gap is a data point with a NaN y-value, the line
+ * is not drawn from the data point before the gap
+ * to the data point after the gap.
+ *
+ * The gaps are identified by the continuous index
+ * of the data point, new gaps are added at the end and
+ * old gaps are removed from the beginning, so the renderers
+ * only have to look up the next gap instead of checking
+ * every data point.
+ *
+ * Only a range of the data is searched for gaps, e.g.
+ * the visible range. The range is extended when other data
+ * is drawn, so the data is never searched completely at once.
+ *
+ * @author jjoe64
+ */
+final class GapIndex {
+    /**
+     * the indexes of the gaps as circular buffer
+     */
+    private long[] mIndexes;
+
+    /**
+     * position of the first entry
+     */
+    private int mHead;
+
+    /**
+     * count of entries
+     */
+    private int mSize;
+
+    /**
+     * continuous indexes of the range that was searched for gaps,
+     * from inclusive, until exclusive
+     */
+    private long mFrom;
+    private long mUntil;
+
+    /**
+     * creates an empty index, no data was searched
+     *
+     * @param index continuous index where the searched range starts
+     */
+    GapIndex(long index) {
+        mIndexes = new long[16];
+        mFrom = mUntil = index;
+    }
+
+    /**
+     * @return continuous index of the first data point that was searched
+     */
+    long getFrom() {
+        return mFrom;
+    }
+
+    /**
+     * @return continuous index after the last data point that was searched
+     */
+    long getUntil() {
+        return mUntil;
+    }
+
+    /**
+     * sets the range that was searched for gaps
+     *
+     * @param from continuous index of the first data point that was searched
+     * @param until continuous index after the last data point that was searched
+     */
+    void setRange(long from, long until) {
+        mFrom = from;
+        mUntil = until;
+    }
+
+    /**
+     * removes all gaps, e.g. to search a range that
+     * does not touch the searched range.
+     *
+     * @param index continuous index where the searched range starts
+     */
+    void reset(long index) {
+        mHead = 0;
+        mSize = 0;
+        mFrom = mUntil = index;
+    }
+
+    /**
+     * adds a gap at the end
+     *
+     * @param index the continuous index of the data point, has to be bigger than the last one
+     */
+    void add(long index) {
+        if (mSize == mIndexes.length) {
+            grow();
+        }
+        mIndexes[position(mSize)] = index;
+        mSize++;
+    }
+
+    /**
+     * adds a gap at the beginning
+     *
+     * @param index the continuous index of the data point, has to be smaller than the first one
+     */
+    void addFirst(long index) {
+        if (mSize == mIndexes.length) {
+            grow();
+        }
+        mHead = mHead == 0 ? mIndexes.length - 1 : mHead - 1;
+        mIndexes[mHead] = index;
+        mSize++;
+    }
+
+    /**
+     * removes the gaps from the beginning.
+     *
+     * @param index the continuous index of the first data point that is still available
+     */
+    void removeBefore(long index) {
+        while (mSize > 0 && mIndexes[mHead] < index) {
+            mHead++;
+            if (mHead == mIndexes.length) mHead = 0;
+            mSize--;
+        }
+        mFrom = Math.max(mFrom, index);
+        mUntil = Math.max(mUntil, index);
+    }
+
+    /**
+     * finds the next gap via binary search
+     *
+     * @param index continuous index of a data point
+     * @return the continuous index of the first gap at or after
+     *          the data point, or Long.MAX_VALUE if there is none
+     */
+    long next(long index) {
+        int lo = 0;
+        int hi = mSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (mIndexes[position(mid)] < index) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < mSize ? mIndexes[position(lo)] : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param i index within the buffer
+     * @return position in the array
+     */
+    private int position(int i) {
+        int p = mHead + i;
+        if (p >= mIndexes.length) p -= mIndexes.length;
+        return p;
+    }
+
+    /**
+     * doubles the capacity of the array
+     */
+    private void grow() {
+        long[] indexes = new long[mIndexes.length * 2];
+        int firstPart = Math.min(mSize, mIndexes.length - mHead);
+        System.arraycopy(mIndexes, mHead, indexes, 0, firstPart);
+        System.arraycopy(mIndexes, 0, indexes, firstPart, mSize - firstPart);
+        mIndexes = indexes;
+        mHead = 0;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue for one producer thread and
+ * one consumer thread (the UI thread).
+ * The producer never blocks, the queue grows
+ * in chunks as needed.
+ *
+ * @author jjoe64
+ */
+final class IngestionQueue<E> {
+    /**
+     * count of elements per chunk
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * part of the queue
+     */
+    private static final class Chunk {
+        final Object[] items = new Object[CHUNK_SIZE];
+        volatile Chunk next;
+    }
+
+    /**
+     * count of elements that were added.
+     * Written by the producer after the element is stored.
+     */
+    private final AtomicLong mWritten = new AtomicLong();
+
+    /**
+     * the chunk that is written and the position in it.
+     * Only used by the producer.
+     */
+    private Chunk mTail;
+    private int mTailPosition;
+
+    /**
+     * the chunk that is read and the position in it.
+     * Only used by the consumer.
+     */
+    private Chunk mHead;
+    private int mHeadPosition;
+
+    /**
+     * count of elements that were read.
+     * Only used by the consumer.
+     */
+    private long mRead;
+
+    IngestionQueue() {
+        mTail = mHead = new Chunk();
+    }
+
+    /**
+     * adds an element. Only call this from the producer thread.
+     *
+     * @param element the element
+     */
+    void offer(E element) {
+        if (mTailPosition == CHUNK_SIZE) {
+            Chunk chunk = new Chunk();
+            mTail.next = chunk;
+            mTail = chunk;
+            mTailPosition = 0;
+        }
+        mTail.items[mTailPosition++] = element;
+        mWritten.set(mWritten.get() + 1);
+    }
+
+    /**
+     * removes all elements that are available.
+     * Only call this from the consumer thread.
+     *
+     * @param out collection for the elements, in the order they were added
+     * @return count of elements
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Collection<? super E> out) {
+        long written = mWritten.get();
+        int count = (int) (written - mRead);
+        for (long i = mRead; i < written; i++) {
+            if (mHeadPosition == CHUNK_SIZE) {
+                mHead = mHead.next;
+                mHeadPosition = 0;
+            }
+            out.add((E) mHead.items[mHeadPosition]);
+            mHead.items[mHeadPosition++] = null;
+        }
+        mRead = written;
+        return count;
+    }
+}
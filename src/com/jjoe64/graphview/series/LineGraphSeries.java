@@ -26,12 +26,15 @@ import android.graphics.Path;
 
 import com.jjoe64.graphview.GraphView;
 
-import java.util.Iterator;
+import java.util.Arrays;
 
 /**
  * Series to plot the data as line.
  * The line can be styled with many options.
  *
+ * A data point with a NaN y-value is a gap,
+ * the line is interrupted there, e.g. for missing data.
+ *
  * @author jjoe64
  */
 public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E> {
@@ -77,6 +80,12 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
          * @see #drawBackground
          */
         private int backgroundColor = Color.argb(100, 172, 218, 255);
+
+        /**
+         * flag whether only the first, last, lowest and highest
+         * data point of every pixel column will be drawn (M4 aggregation).
+         */
+        private boolean aggregatePixelColumns = false;
     }
 
     /**
@@ -110,6 +119,27 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
      */
     private Paint mCustomPaint;
 
+    /**
+     * the line segments (x1, y1, x2, y2) when the
+     * pixel columns are aggregated. Reused for every draw.
+     *
+     * @see #setAggregatePixelColumns(boolean)
+     */
+    private float[] mLines = new float[0];
+
+    /**
+     * count of used values in {@link #mLines}
+     */
+    private int mLinesCount;
+
+    /**
+     * data version and viewport/size of the projection in
+     * {@link #mLines}. If nothing changed, the projection
+     * is reused for the next frame.
+     */
+    private long mProjectedVersion = -1;
+    private final double[] mProjectedState = new double[9];
+
     /**
      * creates a series without data
      */
@@ -127,6 +157,17 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
         init();
     }
 
+    /**
+     * creates a series that uses a specific storage
+     *
+     * @param storage storage with or without data
+     * @see com.jjoe64.graphview.series.PrimitiveDataStorage
+     */
+    public LineGraphSeries(DataStorage<E> storage) {
+        super(storage);
+        init();
+    }
+
     /**
      * do the initialization
      * creates internal objects
@@ -152,7 +193,7 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
      */
     @Override
     public void draw(GraphView graphView, Canvas canvas, boolean isSecondScale) {
-        resetDataPoints();
+        loadVisibleData(graphView);
 
         // get data
         double maxX = graphView.getViewport().getMaxX(false);
@@ -168,7 +209,9 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
             minY = graphView.getViewport().getMinY(false);
         }
 
-        Iterator<E> values = getValues(minX, maxX);
+        DataStorage<E> data = getStorage();
+        int start = getStartIndex(minX);
+        int end = getEndIndex(maxX);
 
         // draw background
         double lastEndY = 0;
@@ -186,10 +229,6 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
             paint = mPaint;
         }
 
-        if (mStyles.drawBackground) {
-            mPathBackground.reset();
-        }
-
         double diffY = maxY - minY;
         double diffX = maxX - minX;
 
@@ -198,103 +237,194 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
         float graphLeft = graphView.getGraphContentLeft();
         float graphTop = graphView.getGraphContentTop();
 
-        lastEndY = 0;
-        lastEndX = 0;
-        double lastUsedEndX = 0;
-        float firstX = 0;
-        int i=0;
-        while (values.hasNext()) {
-            E value = values.next();
-
-            double valY = value.getY() - minY;
-            double ratY = valY / diffY;
-            double y = graphHeight * ratY;
-
-            double valX = value.getX() - minX;
-            double ratX = valX / diffX;
-            double x = graphWidth * ratX;
-
-            double orgX = x;
-            double orgY = y;
-
-            if (i > 0) {
-                // overdraw
-                if (x > graphWidth) { // end right
-                    double b = ((graphWidth - lastEndX) * (y - lastEndY)/(x - lastEndX));
-                    y = lastEndY+b;
-                    x = graphWidth;
-                }
-                if (y < 0) { // end bottom
-                    double b = ((0 - lastEndY) * (x - lastEndX)/(y - lastEndY));
-                    x = lastEndX+b;
-                    y = 0;
-                }
-                if (y > graphHeight) { // end top
-                    double b = ((graphHeight - lastEndY) * (x - lastEndX)/(y - lastEndY));
-                    x = lastEndX+b;
-                    y = graphHeight;
-                }
-                if (lastEndY < 0) { // start bottom
-                    double b = ((0 - y) * (x - lastEndX)/(lastEndY - y));
-                    lastEndX = x-b;
-                    lastEndY = 0;
+        if (mStyles.aggregatePixelColumns && !mStyles.drawDataPoints) {
+            // reuse the projection of the last frame if the data and the viewport did not change
+            boolean changed = mProjectedVersion != getDataVersion();
+            mProjectedVersion = getDataVersion();
+            changed |= updateProjectedState(0, minX);
+            changed |= updateProjectedState(1, maxX);
+            changed |= updateProjectedState(2, minY);
+            changed |= updateProjectedState(3, maxY);
+            changed |= updateProjectedState(4, graphWidth);
+            changed |= updateProjectedState(5, graphHeight);
+            changed |= updateProjectedState(6, graphLeft);
+            changed |= updateProjectedState(7, graphTop);
+            changed |= updateProjectedState(8, mStyles.drawBackground ? 1 : 0);
+            if (!changed) {
+                if (mLinesCount > 0) {
+                    canvas.drawLines(mLines, 0, mLinesCount, paint);
                 }
-                if (lastEndX < 0) { // start left
-                    double b = ((0 - x) * (y - lastEndY)/(lastEndX - x));
-                    lastEndY = y-b;
-                    lastEndX = 0;
-                }
-                if (lastEndY > graphHeight) { // start top
-                    double b = ((graphHeight - y) * (x - lastEndX)/(lastEndY - y));
-                    lastEndX = x-b;
-                    lastEndY = graphHeight;
+                if (mStyles.drawBackground) {
+                    canvas.drawPath(mPathBackground, mPaintBackground);
                 }
+                return;
+            }
+        } else {
+            mProjectedVersion = -1;
+        }
+
+        resetDataPoints();
+        if (mStyles.drawBackground) {
+            mPathBackground.reset();
+        }
 
-                float startX = (float) lastEndX + (graphLeft + 1);
-                float startY = (float) (graphTop - lastEndY) + graphHeight;
-                float endX = (float) x + (graphLeft + 1);
-                float endY = (float) (graphTop - y) + graphHeight;
+        // only the data points that are visible on the pixels
+        int count;
+        if (mStyles.aggregatePixelColumns) {
+            count = selectPixelColumns(start, end, minX, diffX, (int) graphWidth);
+            if (mLines.length < count * 4) {
+                mLines = new float[count * 4];
+            }
+        } else {
+            count = selectDataPoints(start, end, (int) graphWidth);
+        }
+        int[] indexes = getSelectedDataPoints();
+        int lines = 0;
 
-                // draw data point
-                if (mStyles.drawDataPoints) {
-                    //fix: last value was not drawn. Draw here now the end values
-                    canvas.drawCircle(endX, endY, mStyles.dataPointsRadius, mPaint);
+        double lastUsedEndX = 0;
+        float firstX = 0;
+        int runStart = 0;
+        while (runStart < count) {
+            // the line is interrupted at the next gap
+            int runEnd = count;
+            int gap = getNextGap(indexes[runStart], indexes[count - 1] + 1);
+            if (gap != Integer.MAX_VALUE) {
+                runEnd = Arrays.binarySearch(indexes, runStart, count, gap);
+                if (runEnd < 0) {
+                    runEnd = -runEnd - 1;
                 }
-                registerDataPoint(endX, endY, value);
+            }
+            if (runEnd == runStart) {
+                // the gap itself
+                runStart++;
+                continue;
+            }
 
-                mPath.reset();
-                mPath.moveTo(startX, startY);
-                mPath.lineTo(endX, endY);
-                canvas.drawPath(mPath, paint);
-                if (mStyles.drawBackground) {
-                    if (i==1) {
-                        firstX = startX;
-                        mPathBackground.moveTo(startX, startY);
+            lastEndY = 0;
+            lastEndX = 0;
+            for (int i = runStart; i < runEnd; i++) {
+                int index = indexes[i];
+                double valY = data.getY(index) - minY;
+                double ratY = valY / diffY;
+                double y = graphHeight * ratY;
+
+                double valX = data.getX(index) - minX;
+                double ratX = valX / diffX;
+                double x = graphWidth * ratX;
+
+                double orgX = x;
+                double orgY = y;
+
+                if (i > runStart) {
+                    // overdraw
+                    if (x > graphWidth) { // end right
+                        double b = ((graphWidth - lastEndX) * (y - lastEndY)/(x - lastEndX));
+                        y = lastEndY+b;
+                        x = graphWidth;
+                    }
+                    if (y < 0) { // end bottom
+                        double b = ((0 - lastEndY) * (x - lastEndX)/(y - lastEndY));
+                        x = lastEndX+b;
+                        y = 0;
+                    }
+                    if (y > graphHeight) { // end top
+                        double b = ((graphHeight - lastEndY) * (x - lastEndX)/(y - lastEndY));
+                        x = lastEndX+b;
+                        y = graphHeight;
+                    }
+                    if (lastEndY < 0) { // start bottom
+                        double b = ((0 - y) * (x - lastEndX)/(lastEndY - y));
+                        lastEndX = x-b;
+                        lastEndY = 0;
+                    }
+                    if (lastEndX < 0) { // start left
+                        double b = ((0 - x) * (y - lastEndY)/(lastEndX - x));
+                        lastEndY = y-b;
+                        lastEndX = 0;
+                    }
+                    if (lastEndY > graphHeight) { // start top
+                        double b = ((graphHeight - y) * (x - lastEndX)/(lastEndY - y));
+                        lastEndX = x-b;
+                        lastEndY = graphHeight;
+                    }
+
+                    float startX = (float) lastEndX + (graphLeft + 1);
+                    float startY = (float) (graphTop - lastEndY) + graphHeight;
+                    float endX = (float) x + (graphLeft + 1);
+                    float endY = (float) (graphTop - y) + graphHeight;
+
+                    // draw data point
+                    if (mStyles.drawDataPoints) {
+                        //fix: last value was not drawn. Draw here now the end values
+                        canvas.drawCircle(endX, endY, mStyles.dataPointsRadius, mPaint);
+                    }
+                    if (mOnDataPointTapListener != null) {
+                        registerDataPoint(endX, endY, data.get(index));
+                    }
+
+                    if (mStyles.aggregatePixelColumns) {
+                        mLines[lines++] = startX;
+                        mLines[lines++] = startY;
+                        mLines[lines++] = endX;
+                        mLines[lines++] = endY;
+                    } else {
+                        mPath.reset();
+                        mPath.moveTo(startX, startY);
+                        mPath.lineTo(endX, endY);
+                        canvas.drawPath(mPath, paint);
                     }
-                    mPathBackground.lineTo(endX, endY);
+                    if (mStyles.drawBackground) {
+                        if (i == runStart+1) {
+                            firstX = startX;
+                            mPathBackground.moveTo(startX, startY);
+                        }
+                        mPathBackground.lineTo(endX, endY);
+                    }
+                    lastUsedEndX = endX;
+                } else if (mStyles.drawDataPoints) {
+                    //fix: last value not drawn as datapoint. Draw first point here, and then on every step the end values (above)
+                    float first_X = (float) x + (graphLeft + 1);
+                    float first_Y = (float) (graphTop - y) + graphHeight;
+                    //TODO canvas.drawCircle(first_X, first_Y, dataPointsRadius, mPaint);
                 }
-                lastUsedEndX = endX;
-            } else if (mStyles.drawDataPoints) {
-                //fix: last value not drawn as datapoint. Draw first point here, and then on every step the end values (above)
-                float first_X = (float) x + (graphLeft + 1);
-                float first_Y = (float) (graphTop - y) + graphHeight;
-                //TODO canvas.drawCircle(first_X, first_Y, dataPointsRadius, mPaint);
+                lastEndY = orgY;
+                lastEndX = orgX;
+            }
+
+            if (mStyles.drawBackground && runEnd - runStart > 1) {
+                // end / close path
+                mPathBackground.lineTo((float) lastUsedEndX, graphHeight + graphTop);
+                mPathBackground.lineTo(firstX, graphHeight + graphTop);
+                mPathBackground.close();
             }
-            lastEndY = orgY;
-            lastEndX = orgX;
-            i++;
+            runStart = runEnd;
+        }
+        mLinesCount = lines;
+        if (lines > 0) {
+            canvas.drawLines(mLines, 0, lines, paint);
         }
 
         if (mStyles.drawBackground) {
-            // end / close path
-            mPathBackground.lineTo((float) lastUsedEndX, graphHeight + graphTop);
-            mPathBackground.lineTo(firstX, graphHeight + graphTop);
-            mPathBackground.close();
             canvas.drawPath(mPathBackground, mPaintBackground);
         }
 
     }
 
+    /**
+     * updates a value of the state of the projection
+     *
+     * @param i index of the value
+     * @param value the current value
+     * @return true if the value changed
+     */
+    private boolean updateProjectedState(int i, double value) {
+        if (mProjectedState[i] == value) {
+            return false;
+        }
+        mProjectedState[i] = value;
+        return true;
+    }
+
     /**
      * the thickness of the line.
      * This option will be ignored if you are
@@ -379,6 +509,29 @@ public class LineGraphSeries<E extends DataPointInterface> extends BaseSeries<E>
         mStyles.dataPointsRadius = dataPointsRadius;
     }
 
+    /**
+     * @return flag whether only the first, last, lowest and highest
+     *          data point of every pixel column will be drawn.
+     * @see #setAggregatePixelColumns(boolean)
+     */
+    public boolean isAggregatePixelColumns() {
+        return mStyles.aggregatePixelColumns;
+    }
+
+    /**
+     * flag whether only the first, last, lowest and highest
+     * data point of every pixel column will be drawn (M4 aggregation).
+     * The line looks the same as if all data points were drawn,
+     * but at most 4 data points per pixel column are drawn
+     * and all line segments are drawn at once.
+     * Default is false.
+     *
+     * @param aggregatePixelColumns flag whether the pixel columns will be aggregated
+     */
+    public void setAggregatePixelColumns(boolean aggregatePixelColumns) {
+        mStyles.aggregatePixelColumns = aggregatePixelColumns;
+    }
+
     /**
      * @return  the background color for the filling under
      *          the line.
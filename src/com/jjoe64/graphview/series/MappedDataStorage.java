@@ -0,0 +1,231 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only storage that maps a binary file into
+ * memory, for data sets that are bigger than the heap.
+ * The file contains the data points as x/y pairs
+ * of doubles or floats without any header:
+ * x0 y0 x1 y1 x2 y2 ...
+ *
+ * The data is read directly from the mapped file,
+ * so the memory is managed by the page cache of the
+ * operating system and not by the java heap.
+ * The x-values in the file have to be sorted (ASC).
+ *
+ * Example:
+ * <pre>
+ * {@code
+ *  MappedDataStorage storage = new MappedDataStorage(new File(dir, "recording.bin"));
+ *  LineGraphSeries<DataPoint> series = new LineGraphSeries<DataPoint>(storage);
+ *  graph.addSeries(series);
+ * }
+ * </pre>
+ *
+ * The storage can not be appended. {@link #removeFirst(int)}
+ * and {@link #clear()} only change the visible part of the file.
+ *
+ * @author jjoe64
+ */
+public class MappedDataStorage extends AbstractDataStorage<DataPoint> {
+    /**
+     * max count of bytes per mapped region
+     */
+    private static final int MAX_REGION_SHIFT = 30;
+
+    /**
+     * the mapped regions as double views.
+     * null if the file contains floats.
+     */
+    private final DoubleBuffer[] mDoubles;
+
+    /**
+     * the mapped regions as float views.
+     * null if the file contains doubles.
+     */
+    private final FloatBuffer[] mFloats;
+
+    /**
+     * count of data points per region as power of 2
+     */
+    private final int mRegionShift;
+
+    /**
+     * count of data points in the file
+     */
+    private final int mCount;
+
+    /**
+     * index of the first visible data point
+     */
+    private int mOffset;
+
+    /**
+     * maps a file with x/y pairs of doubles in big endian order
+     *
+     * @param file the file
+     * @throws IOException if the file can not be mapped
+     */
+    public MappedDataStorage(File file) throws IOException {
+        this(file, false, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * maps a file with x/y pairs
+     *
+     * @param file the file
+     * @param floatValues   true => the values are stored as floats
+     *                      false => the values are stored as doubles
+     * @param byteOrder the byte order of the values
+     * @throws IOException if the file can not be mapped
+     */
+    public MappedDataStorage(File file, boolean floatValues, ByteOrder byteOrder) throws IOException {
+        int pointShift = floatValues ? 3 : 4;
+        mRegionShift = MAX_REGION_SHIFT - pointShift;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long count = channel.size() >> pointShift;
+            if (count > Integer.MAX_VALUE) {
+                throw new IOException("file contains too many data points: "+count);
+            }
+            mCount = (int) count;
+
+            int regions = (int) ((count + (1L << mRegionShift) - 1) >> mRegionShift);
+            mDoubles = floatValues ? null : new DoubleBuffer[regions];
+            mFloats = floatValues ? new FloatBuffer[regions] : null;
+            for (int i = 0; i < regions; i++) {
+                long first = (long) i << mRegionShift;
+                long points = Math.min(1L << mRegionShift, count - first);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY
+                        , first << pointShift, points << pointShift);
+                buffer.order(byteOrder);
+                if (floatValues) {
+                    mFloats[i] = buffer.asFloatBuffer();
+                } else {
+                    mDoubles[i] = buffer.asDoubleBuffer();
+                }
+            }
+        } finally {
+            // the mapping stays valid
+            raf.close();
+        }
+    }
+
+    /**
+     * creates a view of the same mapping for a snapshot
+     *
+     * @param source the storage
+     */
+    private MappedDataStorage(MappedDataStorage source) {
+        mDoubles = source.mDoubles;
+        mFloats = source.mFloats;
+        mRegionShift = source.mRegionShift;
+        mCount = source.mCount;
+        mOffset = source.mOffset;
+    }
+
+    @Override
+    public int size() {
+        return mCount - mOffset;
+    }
+
+    @Override
+    public double getX(int index) {
+        return value(mOffset + index, 0);
+    }
+
+    @Override
+    public double getY(int index) {
+        return value(mOffset + index, 1);
+    }
+
+    /**
+     * reads a value from the mapped regions
+     *
+     * @param point index of the data point in the file
+     * @param column 0 => x, 1 => y
+     * @return the value
+     */
+    private double value(int point, int column) {
+        int region = point >>> mRegionShift;
+        int i = ((point & ((1 << mRegionShift) - 1)) << 1) + column;
+        if (mDoubles != null) {
+            return mDoubles[region].get(i);
+        } else {
+            return mFloats[region].get(i);
+        }
+    }
+
+    @Override
+    public DataPoint get(int index) {
+        return new DataPoint(getX(index), getY(index));
+    }
+
+    /**
+     * not supported, the file is read-only
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(DataPoint dataPoint) {
+        throw new UnsupportedOperationException("MappedDataStorage is read-only");
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        mOffset += count;
+    }
+
+    @Override
+    public void clear() {
+        mOffset = mCount;
+    }
+
+    /**
+     * @return true, data points can not be added
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * the file is read-only, so the snapshot
+     * only has to keep the visible part.
+     *
+     * @return a view of the data that will not change
+     */
+    @Override
+    public DataStorage<DataPoint> snapshot() {
+        return new MappedDataStorage(this);
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Monotonic deque to get the lowest or highest
+ * value of a sliding window in constant time.
+ *
+ * Values are added at the end and removed from the
+ * beginning, identified by a continuous index.
+ * The deque only keeps the values that can still
+ * become the extremum, so adding and removing
+ * are amortized O(1).
+ *
+ * @author jjoe64
+ */
+final class MonotonicDeque {
+    /**
+     * true => keeps the lowest value
+     * false => keeps the highest value
+     */
+    private final boolean mLowest;
+
+    /**
+     * the indexes of the values as circular buffer
+     */
+    private long[] mIndexes;
+
+    /**
+     * the values as circular buffer
+     */
+    private double[] mValues;
+
+    /**
+     * position of the first entry
+     */
+    private int mHead;
+
+    /**
+     * count of entries
+     */
+    private int mSize;
+
+    /**
+     * @param lowest    true => keeps the lowest value
+     *                  false => keeps the highest value
+     */
+    MonotonicDeque(boolean lowest) {
+        mLowest = lowest;
+        mIndexes = new long[16];
+        mValues = new double[16];
+    }
+
+    /**
+     * adds a value at the end of the window.
+     *
+     * @param index the index of the value, has to be bigger than the last one
+     * @param value the value, NaN is ignored
+     */
+    void add(long index, double value) {
+        if (Double.isNaN(value)) {
+            // gap
+            return;
+        }
+        // drop the values that can never be the extremum again
+        while (mSize > 0) {
+            double last = mValues[position(mSize-1)];
+            if (mLowest ? last >= value : last <= value) {
+                mSize--;
+            } else {
+                break;
+            }
+        }
+        if (mSize == mValues.length) {
+            grow();
+        }
+        int p = position(mSize);
+        mIndexes[p] = index;
+        mValues[p] = value;
+        mSize++;
+    }
+
+    /**
+     * removes the values from the beginning of the window.
+     *
+     * @param index the index of the first value that will stay in the window
+     */
+    void removeBefore(long index) {
+        while (mSize > 0 && mIndexes[mHead] < index) {
+            mHead++;
+            if (mHead == mIndexes.length) mHead = 0;
+            mSize--;
+        }
+    }
+
+    /**
+     * @return whether there are no values in the window
+     */
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * @return the lowest/highest value of the window,
+     *          infinity if the window is empty
+     */
+    double get() {
+        if (mSize == 0) {
+            return mLowest ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        return mValues[mHead];
+    }
+
+    /**
+     * removes all values
+     */
+    void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    /**
+     * @param i index within the deque
+     * @return position in the arrays
+     */
+    private int position(int i) {
+        int p = mHead + i;
+        if (p >= mValues.length) p -= mValues.length;
+        return p;
+    }
+
+    /**
+     * doubles the capacity of the arrays
+     */
+    private void grow() {
+        long[] indexes = new long[mIndexes.length * 2];
+        double[] values = new double[indexes.length];
+        int firstPart = Math.min(mSize, mIndexes.length - mHead);
+        System.arraycopy(mIndexes, mHead, indexes, 0, firstPart);
+        System.arraycopy(mIndexes, 0, indexes, firstPart, mSize - firstPart);
+        System.arraycopy(mValues, mHead, values, 0, firstPart);
+        System.arraycopy(mValues, 0, values, firstPart, mSize - firstPart);
+        mIndexes = indexes;
+        mValues = values;
+        mHead = 0;
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Default storage that holds the data point objects.
+ * Use this if you need your own data point class
+ * in the series, e.g. for a {@link com.jjoe64.graphview.ValueDependentColor}.
+ *
+ * The objects are stored in a circular buffer, so
+ * removing the oldest data points (e.g. via the maxDataPoints
+ * parameter of {@link com.jjoe64.graphview.series.BaseSeries#appendData(DataPointInterface, boolean, int)})
+ * does not move the other data. The buffer grows only
+ * until it is big enough for the max count of data points.
+ *
+ * @author jjoe64
+ */
+public class ObjectDataStorage<E extends DataPointInterface> extends AbstractDataStorage<E> {
+    /**
+     * initial capacity of the buffer
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * value of {@link #mSharedFrom} if there is no snapshot
+     */
+    private static final long NOT_SHARED = Long.MAX_VALUE;
+
+    /**
+     * holds the data as circular buffer
+     */
+    private Object[] mData;
+
+    /**
+     * position of the first data point in the buffer
+     */
+    private int mHead;
+
+    /**
+     * count of data points
+     */
+    private int mSize;
+
+    /**
+     * count of data points that were removed from the
+     * beginning. This is the continuous index of the first
+     * data point.
+     */
+    private long mRemoved;
+
+    /**
+     * continuous index of the first data point that is
+     * used by a snapshot. The buffer is copied before such
+     * a data point is overwritten.
+     */
+    private long mSharedFrom = NOT_SHARED;
+
+    /**
+     * creates an empty storage
+     */
+    public ObjectDataStorage() {
+        mData = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * creates a storage with data
+     *
+     * @param data  data points
+     *              important: array has to be sorted from lowest x-value to the highest
+     */
+    public ObjectDataStorage(E[] data) {
+        mData = new Object[Math.max(data.length, 1)];
+        System.arraycopy(data, 0, mData, 0, data.length);
+        mSize = data.length;
+    }
+
+    /**
+     * creates a storage that takes the ownership of the
+     * array without copying it.
+     * The array must not be modified afterwards.
+     *
+     * @param data  data points
+     *              important: array has to be sorted from lowest x-value to the highest
+     * @param <E>   the type of the data points
+     * @return the storage that uses the array
+     */
+    public static <E extends DataPointInterface> ObjectDataStorage<E> wrap(E[] data) {
+        if (data.length == 0) {
+            return new ObjectDataStorage<E>();
+        }
+        return new ObjectDataStorage<E>(data, 0, data.length);
+    }
+
+    /**
+     * creates a view of the buffer for a snapshot
+     */
+    private ObjectDataStorage(Object[] data, int head, int size) {
+        mData = data;
+        mHead = head;
+        mSize = size;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public double getX(int index) {
+        return get(index).getX();
+    }
+
+    @Override
+    public double getY(int index) {
+        return get(index).getY();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        int p = mHead + index;
+        if (p >= mData.length) p -= mData.length;
+        return (E) mData[p];
+    }
+
+    @Override
+    public void add(E dataPoint) {
+        if (mSize == mData.length) {
+            resize(mData.length * 2);
+        } else if (mRemoved + mSize - mData.length >= mSharedFrom) {
+            // the position is used by a snapshot
+            resize(Math.max(mData.length, mSize * 2));
+        }
+        int p = mHead + mSize;
+        if (p >= mData.length) p -= mData.length;
+        mData[p] = dataPoint;
+        mSize++;
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        boolean shared = mSharedFrom != NOT_SHARED;
+        for (int i = 0; i < count; i++) {
+            if (!shared) {
+                // release the references
+                mData[mHead] = null;
+            }
+            mHead++;
+            if (mHead == mData.length) mHead = 0;
+        }
+        mSize -= count;
+        mRemoved += count;
+    }
+
+    @Override
+    public void clear() {
+        removeFirst(mSize);
+        if (mSharedFrom == NOT_SHARED) {
+            mHead = 0;
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * creates a view of the current data.
+     * The buffer is shared, it will be copied when data
+     * of the snapshot would be overwritten.
+     *
+     * @return a view of the data that will not change
+     */
+    @Override
+    public DataStorage<E> snapshot() {
+        if (mSharedFrom == NOT_SHARED) {
+            mSharedFrom = mRemoved;
+        }
+        return new ObjectDataStorage<E>(mData, mHead, mSize);
+    }
+
+    /**
+     * copies the data into a new buffer.
+     * the data will start at position 0 again.
+     *
+     * @param capacity the new capacity
+     */
+    private void resize(int capacity) {
+        Object[] data = new Object[capacity];
+        int firstPart = Math.min(mSize, mData.length - mHead);
+        System.arraycopy(mData, mHead, data, 0, firstPart);
+        System.arraycopy(mData, 0, data, firstPart, mSize - firstPart);
+        mData = data;
+        mHead = 0;
+        mSharedFrom = NOT_SHARED;
+    }
+}
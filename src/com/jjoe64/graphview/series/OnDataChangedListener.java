@@ -0,0 +1,65 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+/**
+ * Listener for the changes of the data of a series,
+ * e.g. to calculate derived data incrementally.
+ * The listener is called synchronously on the thread
+ * that changes the data, usually the UI thread, once the
+ * change is complete.
+ *
+ * Use this in {@link com.jjoe64.graphview.series.BaseSeries#addOnDataChangedListener(OnDataChangedListener)}
+ *
+ * @author jjoe64
+ */
+public interface OnDataChangedListener {
+    /**
+     * gets called when data points were appended
+     * at the end of the data. Only the data points that
+     * the series kept are reported. Called once per
+     * append call, after {@link #onDataRemoved(BaseSeries, int)}
+     * for the data points that were removed by it.
+     *
+     * @param series the corresponding series
+     * @param data the data of the series. Only read it during this call,
+     *             do not modify it.
+     * @param from index of the first new data point in the data
+     * @param to index after the last new data point (exclusive)
+     */
+    void onDataAppended(BaseSeries<?> series, DataStorage<?> data, int from, int to);
+
+    /**
+     * gets called when the oldest data points were removed,
+     * e.g. because of the maxDataPoints or the retention window.
+     *
+     * @param series the corresponding series
+     * @param count the count of removed data points
+     */
+    void onDataRemoved(BaseSeries<?> series, int count);
+
+    /**
+     * gets called when the data was replaced.
+     * Any derived data has to be recalculated.
+     *
+     * @param series the corresponding series
+     */
+    void onDataReset(BaseSeries<?> series);
+}
@@ -27,7 +27,6 @@ import android.graphics.Point;
 
 import com.jjoe64.graphview.GraphView;
 
-import java.util.Iterator;
 
 /**
  * Series that plots the data as points.
@@ -93,6 +92,12 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
          * the shape that will be drawn for each point.
          */
         Shape shape;
+
+        /**
+         * true if only the min/max data points of each
+         * pixel range are drawn.
+         */
+        boolean reduceDataPoints;
     }
 
     /**
@@ -127,6 +132,17 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
         init();
     }
 
+    /**
+     * creates the series that uses a specific storage
+     *
+     * @param storage storage with or without data
+     * @see com.jjoe64.graphview.series.PrimitiveDataStorage
+     */
+    public PointsGraphSeries(DataStorage<E> storage) {
+        super(storage);
+        init();
+    }
+
     /**
      * inits the internal objects
      * set the defaults
@@ -150,6 +166,8 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
     public void draw(GraphView graphView, Canvas canvas, boolean isSecondScale) {
         resetDataPoints();
 
+        loadVisibleData(graphView);
+
         // get data
         double maxX = graphView.getViewport().getMaxX(false);
         double minX = graphView.getViewport().getMinX(false);
@@ -164,7 +182,9 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
             minY = graphView.getViewport().getMinY(false);
         }
 
-        Iterator<E> values = getValues(minX, maxX);
+        DataStorage<E> data = getStorage();
+        int start = getStartIndex(minX);
+        int end = getEndIndex(maxX);
 
         // draw background
         double lastEndY = 0;
@@ -181,18 +201,22 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
         float graphLeft = graphView.getGraphContentLeft();
         float graphTop = graphView.getGraphContentTop();
 
+        // only the data points that are visible on the pixels
+        int count = mStyles.reduceDataPoints || getDownsampleTarget() > 0
+                ? selectDataPoints(start, end, (int) graphWidth)
+                : selectAllDataPoints(start, end);
+        int[] indexes = getSelectedDataPoints();
+
         lastEndY = 0;
         lastEndX = 0;
         float firstX = 0;
-        int i=0;
-        while (values.hasNext()) {
-            E value = values.next();
-
-            double valY = value.getY() - minY;
+        for (int n = 0; n < count; n++) {
+            int i = indexes[n];
+            double valY = data.getY(i) - minY;
             double ratY = valY / diffY;
             double y = graphHeight * ratY;
 
-            double valX = value.getX() - minX;
+            double valX = data.getX(i) - minX;
             double ratX = valX / diffX;
             double x = graphWidth * ratX;
 
@@ -213,7 +237,9 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
 
             float endX = (float) x + (graphLeft + 1);
             float endY = (float) (graphTop - y) + graphHeight;
-            registerDataPoint(endX, endY, value);
+            if (mOnDataPointTapListener != null) {
+                registerDataPoint(endX, endY, data.get(i));
+            }
 
             // draw data point
             if (!overdraw) {
@@ -231,8 +257,6 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
                     drawArrows(points, canvas, mPaint);
                 }
             }
-
-            i++;
         }
 
     }
@@ -299,6 +323,26 @@ public class PointsGraphSeries<E extends DataPointInterface> extends BaseSeries<
         mStyles.shape = s;
     }
 
+    /**
+     * @return true if the drawn data points are reduced
+     * @see #setReduceDataPoints(boolean)
+     */
+    public boolean isReduceDataPoints() {
+        return mStyles.reduceDataPoints;
+    }
+
+    /**
+     * draw only the min/max data points of each pixel range
+     * instead of all data points. This is faster for big data
+     * sets, but points between min and max are not drawn.
+     * Default is false.
+     *
+     * @param reduceDataPoints true to reduce the drawn data points
+     */
+    public void setReduceDataPoints(boolean reduceDataPoints) {
+        mStyles.reduceDataPoints = reduceDataPoints;
+    }
+
     /**
      * Use a custom handler to render your own
      * drawing for each data point.
@@ -0,0 +1,440 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Storage that holds the x- and y-values in
+ * two growable double arrays instead of one
+ * object per data point.
+ * This needs about a third of the memory of
+ * {@link com.jjoe64.graphview.series.ObjectDataStorage}
+ * and the values can be read without following
+ * a reference for each data point.
+ *
+ * The arrays are used as circular buffer, so removing
+ * the oldest data points does not move the other data.
+ *
+ * {@link #get(int)} creates a new {@link com.jjoe64.graphview.series.DataPoint}
+ * on every call.
+ *
+ * Example:
+ * <pre>
+ * {@code
+ *  PrimitiveDataStorage storage = new PrimitiveDataStorage();
+ *  storage.add(0, 5);
+ *  storage.add(1, 3);
+ *  LineGraphSeries<DataPoint> series = new LineGraphSeries<DataPoint>(storage);
+ * }
+ * </pre>
+ *
+ * @author jjoe64
+ */
+public class PrimitiveDataStorage extends AbstractDataStorage<DataPoint> {
+    /**
+     * initial capacity of the arrays
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * value of {@link #mSharedFrom} if there is no snapshot
+     */
+    private static final long NOT_SHARED = Long.MAX_VALUE;
+
+    /**
+     * first bytes of the binary format ("GVSD")
+     */
+    private static final int MAGIC = 0x47565344;
+
+    /**
+     * version of the binary format
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * size of the buffer to read and write the binary format
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * x-values
+     */
+    private double[] mX;
+
+    /**
+     * y-values
+     */
+    private double[] mY;
+
+    /**
+     * position of the first value in the arrays
+     */
+    private int mHead;
+
+    /**
+     * count of the used values in the arrays
+     */
+    private int mSize;
+
+    /**
+     * count of values that were removed from the
+     * beginning. This is the continuous index of the first
+     * value.
+     */
+    private long mRemoved;
+
+    /**
+     * continuous index of the first value that is
+     * used by a snapshot. The arrays are copied before such
+     * a value is overwritten.
+     */
+    private long mSharedFrom = NOT_SHARED;
+
+    /**
+     * creates an empty storage
+     */
+    public PrimitiveDataStorage() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * creates an empty storage
+     *
+     * @param capacity initial capacity. Use this if you
+     *                 know the count of the data points to
+     *                 avoid growing the arrays.
+     */
+    public PrimitiveDataStorage(int capacity) {
+        mX = new double[Math.max(capacity, 1)];
+        mY = new double[mX.length];
+    }
+
+    /**
+     * creates a storage with data
+     *
+     * @param data  data points
+     *              important: array has to be sorted from lowest x-value to the highest
+     */
+    public PrimitiveDataStorage(DataPointInterface[] data) {
+        this(data.length);
+        for (DataPointInterface d : data) {
+            add(d.getX(), d.getY());
+        }
+    }
+
+    /**
+     * creates a storage that takes the ownership of the
+     * arrays without copying them.
+     * The arrays must not be modified afterwards, the storage
+     * will write new values behind count as long as there
+     * is space left.
+     *
+     * @param x     x-values, important: they have to be sorted ASC
+     * @param y     y-values
+     * @param count the count of the valid values in the arrays
+     * @return the storage that uses the arrays
+     */
+    public static PrimitiveDataStorage wrap(double[] x, double[] y, int count) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("x and y arrays must have the same length");
+        }
+        if (count < 0 || count > x.length) {
+            throw new IllegalArgumentException("count has to be between 0 and the length of the arrays");
+        }
+        if (x.length == 0) {
+            return new PrimitiveDataStorage();
+        }
+        return new PrimitiveDataStorage(x, y, 0, count);
+    }
+
+    /**
+     * creates a storage that uses the arrays,
+     * for a snapshot or restored data
+     */
+    PrimitiveDataStorage(double[] x, double[] y, int head, int size) {
+        mX = x;
+        mY = y;
+        mHead = head;
+        mSize = size;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public double getX(int index) {
+        int p = mHead + index;
+        if (p >= mX.length) p -= mX.length;
+        return mX[p];
+    }
+
+    @Override
+    public double getY(int index) {
+        int p = mHead + index;
+        if (p >= mY.length) p -= mY.length;
+        return mY[p];
+    }
+
+    @Override
+    public DataPoint get(int index) {
+        return new DataPoint(getX(index), getY(index));
+    }
+
+    @Override
+    public void add(DataPoint dataPoint) {
+        add(dataPoint.getX(), dataPoint.getY());
+    }
+
+    /**
+     * appends a value pair without creating
+     * a data point object.
+     *
+     * @param x x-value
+     * @param y y-value
+     */
+    public void add(double x, double y) {
+        if (mSize == mX.length) {
+            resize(mX.length * 2);
+        } else if (mRemoved + mSize - mX.length >= mSharedFrom) {
+            // the position is used by a snapshot
+            resize(Math.max(mX.length, mSize * 2));
+        }
+        int p = mHead + mSize;
+        if (p >= mX.length) p -= mX.length;
+        mX[p] = x;
+        mY[p] = y;
+        mSize++;
+    }
+
+    /**
+     * appends the value pairs without creating data point
+     * objects. The values of another PrimitiveDataStorage
+     * are copied as arrays.
+     *
+     * @param data the storage with the data points
+     * @param from index of the first data point
+     * @param to index after the last data point (exclusive)
+     */
+    @Override
+    public void addAll(DataStorage<DataPoint> data, int from, int to) {
+        if (!(data instanceof PrimitiveDataStorage)) {
+            for (int i = from; i < to; i++) {
+                add(data.getX(i), data.getY(i));
+            }
+            return;
+        }
+        PrimitiveDataStorage source = (PrimitiveDataStorage) data;
+        int count = to - from;
+        if (count <= 0) {
+            return;
+        }
+        if (mSize + count > mX.length) {
+            resize(Math.max(mX.length * 2, mSize + count));
+        } else if (mRemoved + mSize + count - 1 - mX.length >= mSharedFrom) {
+            // positions are used by a snapshot
+            resize(Math.max(mX.length, (mSize + count) * 2));
+        }
+        int copied = 0;
+        while (copied < count) {
+            int s = source.mHead + from + copied;
+            if (s >= source.mX.length) s -= source.mX.length;
+            int p = mHead + mSize;
+            if (p >= mX.length) p -= mX.length;
+            int n = Math.min(count - copied, Math.min(source.mX.length - s, mX.length - p));
+            System.arraycopy(source.mX, s, mX, p, n);
+            System.arraycopy(source.mY, s, mY, p, n);
+            mSize += n;
+            copied += n;
+        }
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        mHead += count;
+        if (mHead >= mX.length) mHead -= mX.length;
+        mSize -= count;
+        mRemoved += count;
+    }
+
+    @Override
+    public void clear() {
+        if (mSharedFrom == NOT_SHARED) {
+            mHead = 0;
+            mRemoved += mSize;
+            mSize = 0;
+        } else {
+            removeFirst(mSize);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * creates a view of the current data.
+     * The arrays are shared, they will be copied when values
+     * of the snapshot would be overwritten.
+     *
+     * @return a view of the data that will not change
+     */
+    @Override
+    public DataStorage<DataPoint> snapshot() {
+        if (mSharedFrom == NOT_SHARED) {
+            mSharedFrom = mRemoved;
+        }
+        return new PrimitiveDataStorage(mX, mY, mHead, mSize);
+    }
+
+    /**
+     * writes the data of a storage in a binary format.
+     * The format is a header (magic, version, count) and
+     * the x-values and the y-values as doubles, big endian.
+     *
+     * @param data the data
+     * @param channel the channel
+     * @throws IOException if the data can not be written
+     * @see #read(java.nio.channels.ReadableByteChannel)
+     */
+    public static void write(DataStorage<?> data, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int count = data.size();
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(count);
+        for (int column = 0; column < 2; column++) {
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < 8) {
+                    writeFully(buffer, channel);
+                }
+                buffer.putDouble(column == 0 ? data.getX(i) : data.getY(i));
+            }
+        }
+        writeFully(buffer, channel);
+    }
+
+    /**
+     * writes the content of the buffer and clears it
+     */
+    private static void writeFully(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * restores data that was written via {@link #write(DataStorage, java.nio.channels.WritableByteChannel)}
+     * or {@link com.jjoe64.graphview.series.BaseSeries#writeData(java.nio.channels.WritableByteChannel)}.
+     * The values are read directly into the arrays, without
+     * creating data point objects and without checking the order.
+     *
+     * Example:
+     * <pre>
+     * {@code
+     *  FileInputStream in = new FileInputStream(file);
+     *  try {
+     *      series.setStorage(PrimitiveDataStorage.read(in.getChannel()));
+     *  } finally {
+     *      in.close();
+     *  }
+     * }
+     * </pre>
+     *
+     * @param channel the channel
+     * @return a storage with the data
+     * @throws IOException if the data can not be read or has the wrong format
+     */
+    public static PrimitiveDataStorage read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.limit(12);
+        readFully(buffer, channel);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("unknown data format");
+        }
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IOException("invalid count of data points: "+count);
+        }
+
+        double[] x = new double[Math.max(count, 1)];
+        double[] y = new double[x.length];
+        readColumn(x, count, buffer, channel);
+        readColumn(y, count, buffer, channel);
+        return new PrimitiveDataStorage(x, y, 0, count);
+    }
+
+    /**
+     * reads doubles into an array
+     */
+    private static void readColumn(double[] values, int count, ByteBuffer buffer, ReadableByteChannel channel) throws IOException {
+        int done = 0;
+        while (done < count) {
+            buffer.clear();
+            buffer.limit(Math.min(count - done, BUFFER_SIZE / 8) * 8);
+            readFully(buffer, channel);
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            int n = doubles.remaining();
+            doubles.get(values, done, n);
+            done += n;
+        }
+    }
+
+    /**
+     * reads until the buffer is full and flips it
+     */
+    private static void readFully(ByteBuffer buffer, ReadableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("unexpected end of data");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * copies the values into new arrays.
+     * the data will start at position 0 again.
+     *
+     * @param capacity the new capacity
+     */
+    private void resize(int capacity) {
+        double[] x = new double[capacity];
+        double[] y = new double[x.length];
+        int firstPart = Math.min(mSize, mX.length - mHead);
+        System.arraycopy(mX, mHead, x, 0, firstPart);
+        System.arraycopy(mX, 0, x, firstPart, mSize - firstPart);
+        System.arraycopy(mY, mHead, y, 0, firstPart);
+        System.arraycopy(mY, 0, y, firstPart, mSize - firstPart);
+        mX = x;
+        mY = y;
+        mHead = 0;
+        mSharedFrom = NOT_SHARED;
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import java.util.Arrays;
+
+/**
+ * Index to get the lowest and highest y-value
+ * of a range of data points in O(log n).
+ *
+ * The data points are grouped into blocks of
+ * a power of 2 values. A segment tree holds the
+ * min/max of the blocks, the blocks at the border of
+ * a range are scanned directly.
+ *
+ * The blocks are identified by the continuous index
+ * of the data points and are stored as circular
+ * buffer, so removing data points from the beginning
+ * does not need any update.
+ *
+ * @author jjoe64
+ */
+final class RangeExtremaIndex {
+    /**
+     * min count of data points per block as power of 2
+     */
+    static final int MIN_BLOCK_SHIFT = 4;
+
+    /**
+     * max count of blocks when the index is created.
+     * For more data points the blocks are bigger.
+     */
+    private static final int MAX_INITIAL_BLOCKS = 1 << 16;
+
+    /**
+     * count of data points per block as power of 2
+     */
+    private final int mBlockShift;
+
+    /**
+     * count of blocks (leafs of the tree), always a power of 2
+     */
+    private int mCapacity;
+
+    /**
+     * min of the nodes. leafs start at mCapacity.
+     */
+    private double[] mMin;
+
+    /**
+     * max of the nodes. leafs start at mCapacity.
+     */
+    private double[] mMax;
+
+    /**
+     * the first block that contains data
+     */
+    private long mFirstBlock;
+
+    /**
+     * the block of the last added value
+     */
+    private long mLastBlock = -1;
+
+    /**
+     * lowest value of the last query
+     */
+    private double mResultMin;
+
+    /**
+     * highest value of the last query
+     */
+    private double mResultMax;
+
+    /**
+     * creates an empty index
+     *
+     * @param firstIndex the continuous index of the first data point that will be added
+     * @param count the count of data points that will be added initially.
+     *              this is used to limit the count of blocks.
+     */
+    RangeExtremaIndex(long firstIndex, int count) {
+        int shift = MIN_BLOCK_SHIFT;
+        while ((count >> shift) > MAX_INITIAL_BLOCKS) {
+            shift++;
+        }
+        mBlockShift = shift;
+        mFirstBlock = firstIndex >> mBlockShift;
+        init(16);
+    }
+
+    /**
+     * creates the arrays for the tree
+     *
+     * @param capacity count of blocks, power of 2
+     */
+    private void init(int capacity) {
+        mCapacity = capacity;
+        mMin = new double[capacity * 2];
+        mMax = new double[capacity * 2];
+        Arrays.fill(mMin, Double.POSITIVE_INFINITY);
+        Arrays.fill(mMax, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * adds a value at the end.
+     *
+     * @param index continuous index of the data point
+     * @param value y-value, NaN for a gap
+     */
+    void add(long index, double value) {
+        long block = index >> mBlockShift;
+        if (block - mFirstBlock >= mCapacity) {
+            grow(block - mFirstBlock + 1);
+        }
+        double min = value;
+        double max = value;
+        if (Double.isNaN(value)) {
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+        }
+        int p = mCapacity + (int) (block & (mCapacity - 1));
+        if (block != mLastBlock) {
+            // first value of the block, the leaf may hold an old block
+            mLastBlock = block;
+            mMin[p] = min;
+            mMax[p] = max;
+            updateParents(p, true);
+        } else if (min < mMin[p] || max > mMax[p]) {
+            mMin[p] = Math.min(mMin[p], min);
+            mMax[p] = Math.max(mMax[p], max);
+            updateParents(p, false);
+        }
+    }
+
+    /**
+     * marks the data points before the index
+     * as removed.
+     *
+     * @param index continuous index of the first data point that is still available
+     */
+    void removeBefore(long index) {
+        mFirstBlock = index >> mBlockShift;
+    }
+
+    /**
+     * calculates the lowest and highest value of a range.
+     * Get the result via {@link #getResultMin()} and {@link #getResultMax()}.
+     *
+     * @param storage the storage with the data points
+     * @param firstIndex continuous index of the data point at position 0 in the storage
+     * @param from index in the storage of the first data point of the range
+     * @param to index in the storage of the last data point of the range (inclusive)
+     */
+    void query(DataStorage<?> storage, long firstIndex, int from, int to) {
+        mResultMin = Double.POSITIVE_INFINITY;
+        mResultMax = Double.NEGATIVE_INFINITY;
+
+        long fromBlock = (firstIndex + from) >> mBlockShift;
+        long toBlock = (firstIndex + to) >> mBlockShift;
+        if (toBlock - fromBlock < 2) {
+            scan(storage, from, to);
+            return;
+        }
+
+        // blocks at the border
+        int firstFull = (int) (((fromBlock + 1) << mBlockShift) - firstIndex);
+        int lastFull = (int) ((toBlock << mBlockShift) - firstIndex) - 1;
+        scan(storage, from, firstFull - 1);
+        scan(storage, lastFull + 1, to);
+
+        // complete blocks via the tree
+        int p1 = (int) ((fromBlock + 1) & (mCapacity - 1));
+        int p2 = (int) ((toBlock - 1) & (mCapacity - 1));
+        if (p1 <= p2) {
+            queryTree(p1, p2);
+        } else {
+            queryTree(p1, mCapacity - 1);
+            queryTree(0, p2);
+        }
+    }
+
+    /**
+     * @return the lowest value of the last query
+     */
+    double getResultMin() {
+        return mResultMin;
+    }
+
+    /**
+     * @return the highest value of the last query
+     */
+    double getResultMax() {
+        return mResultMax;
+    }
+
+    /**
+     * scans the data points directly
+     */
+    private void scan(DataStorage<?> storage, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            double v = storage.getY(i);
+            if (v < mResultMin) mResultMin = v;
+            if (v > mResultMax) mResultMax = v;
+        }
+    }
+
+    /**
+     * query of the segment tree
+     *
+     * @param l first leaf
+     * @param r last leaf (inclusive)
+     */
+    private void queryTree(int l, int r) {
+        l += mCapacity;
+        r += mCapacity + 1;
+        while (l < r) {
+            if ((l & 1) == 1) {
+                merge(l++);
+            }
+            if ((r & 1) == 1) {
+                merge(--r);
+            }
+            l >>= 1;
+            r >>= 1;
+        }
+    }
+
+    /**
+     * merges a node into the result
+     */
+    private void merge(int node) {
+        if (mMin[node] < mResultMin) mResultMin = mMin[node];
+        if (mMax[node] > mResultMax) mResultMax = mMax[node];
+    }
+
+    /**
+     * recalculates the parents of a leaf
+     *
+     * @param p the leaf
+     * @param force false => stop when a parent does not change
+     */
+    private void updateParents(int p, boolean force) {
+        p >>= 1;
+        while (p > 0) {
+            double min = Math.min(mMin[2*p], mMin[2*p+1]);
+            double max = Math.max(mMax[2*p], mMax[2*p+1]);
+            if (!force && min == mMin[p] && max == mMax[p]) {
+                break;
+            }
+            mMin[p] = min;
+            mMax[p] = max;
+            p >>= 1;
+        }
+    }
+
+    /**
+     * increases the capacity and moves the
+     * blocks that still contain data.
+     *
+     * @param blocks the needed count of blocks
+     */
+    private void grow(long blocks) {
+        double[] min = mMin;
+        double[] max = mMax;
+        int oldCapacity = mCapacity;
+        int capacity = mCapacity;
+        while (capacity < blocks) {
+            capacity *= 2;
+        }
+        init(capacity);
+        for (long b = mFirstBlock; b <= mLastBlock; b++) {
+            int from = oldCapacity + (int) (b & (oldCapacity - 1));
+            int to = capacity + (int) (b & (capacity - 1));
+            mMin[to] = min[from];
+            mMax[to] = max[from];
+        }
+        for (int p = capacity - 1; p > 0; p--) {
+            mMin[p] = Math.min(mMin[2*p], mMin[2*p+1]);
+            mMax[p] = Math.max(mMax[2*p], mMax[2*p+1]);
+        }
+    }
+}
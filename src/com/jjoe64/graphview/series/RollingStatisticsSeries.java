@@ -0,0 +1,240 @@
+/**
+ * GraphView
+ * Copyright (C) 2014  Jonas Gehring
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License,
+ * with the "Linking Exception", which can be found at the license.txt
+ * file in this program.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * with the "Linking Exception" along with this program; if not,
+ * write to the author Jonas Gehring <g.jjoe64@gmail.com>.
+ */
+package com.jjoe64.graphview.series;
+
+import java.util.ArrayList;
+
+/**
+ * Line series that shows a rolling statistic of
+ * another series, e.g. the moving average as overlay
+ * of the raw data.
+ *
+ * The series listens to the changes of the source series
+ * and calculates the value for every data point that the
+ * source keeps in constant time. The values of an append are
+ * appended here at once. Data points that are removed from the
+ * source series are removed here as well.
+ * Data points of the source with a NaN y-value are gaps,
+ * they are not used for the statistic and are shown as gaps.
+ *
+ * <pre>
+ * {@code
+ *  RollingStatisticsSeries average = new RollingStatisticsSeries(
+ *      series, RollingStatisticsSeries.Statistic.MOVING_AVERAGE, 20);
+ *  graph.addSeries(series);
+ *  graph.addSeries(average);
+ * }
+ * </pre>
+ *
+ * @author jjoe64
+ */
+public class RollingStatisticsSeries extends LineGraphSeries<DataPoint> implements OnDataChangedListener {
+    /**
+     * the statistic to calculate over the window
+     */
+    public enum Statistic {
+        /**
+         * simple moving average of the last values
+         */
+        MOVING_AVERAGE,
+
+        /**
+         * exponential moving average, the window is
+         * used for the smoothing factor 2 / (window + 1)
+         */
+        EXPONENTIAL_MOVING_AVERAGE,
+
+        /**
+         * standard deviation of the last values
+         */
+        STANDARD_DEVIATION
+    }
+
+    /**
+     * the series that is the source of the values
+     */
+    private final BaseSeries<?> mSource;
+
+    /**
+     * the statistic to calculate
+     */
+    private final Statistic mStatistic;
+
+    /**
+     * the last values of the source as circular buffer
+     */
+    private final double[] mWindow;
+
+    /**
+     * position of the oldest value in the window
+     */
+    private int mWindowHead;
+
+    /**
+     * count of values in the window
+     */
+    private int mWindowCount;
+
+    /**
+     * mean of the values in the window,
+     * or the exponential moving average
+     */
+    private double mMean;
+
+    /**
+     * sum of the squared differences to the mean
+     * (Welford), for the standard deviation
+     */
+    private double mSquares;
+
+    /**
+     * creates the series and calculates the values
+     * for the current data of the source.
+     *
+     * @param source    the series with the raw data
+     * @param statistic the statistic to calculate
+     * @param window    the count of data points the statistic is calculated for
+     */
+    public RollingStatisticsSeries(BaseSeries<?> source, Statistic statistic, int window) {
+        super(new PrimitiveDataStorage());
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        mSource = source;
+        mStatistic = statistic;
+        mWindow = new double[window];
+        recalculate();
+        source.addOnDataChangedListener(this);
+    }
+
+    /**
+     * @return the series with the raw data
+     */
+    public BaseSeries<?> getSource() {
+        return mSource;
+    }
+
+    /**
+     * @return the statistic that is calculated
+     */
+    public Statistic getStatistic() {
+        return mStatistic;
+    }
+
+    /**
+     * @return the count of data points the statistic is calculated for
+     */
+    public int getWindow() {
+        return mWindow.length;
+    }
+
+    /**
+     * stops listening to the source series.
+     * Call this when the series is not used anymore.
+     */
+    public void detach() {
+        mSource.removeOnDataChangedListener(this);
+    }
+
+    @Override
+    public void onDataAppended(BaseSeries<?> series, DataStorage<?> data, int from, int to) {
+        ArrayList<DataPoint> values = new ArrayList<DataPoint>(to - from);
+        for (int i = from; i < to; i++) {
+            values.add(new DataPoint(data.getX(i), add(data.getY(i))));
+        }
+        appendData(values, false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void onDataRemoved(BaseSeries<?> series, int count) {
+        removeFirstData(count);
+    }
+
+    @Override
+    public void onDataReset(BaseSeries<?> series) {
+        recalculate();
+    }
+
+    /**
+     * calculates the values for the whole data of the source
+     */
+    private void recalculate() {
+        mWindowHead = 0;
+        mWindowCount = 0;
+        mMean = 0;
+        mSquares = 0;
+
+        DataStorage<?> source = mSource.getStorage();
+        int size = source.size();
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = source.getX(i);
+            y[i] = add(source.getY(i));
+        }
+        resetData(PrimitiveDataStorage.wrap(x, y, size), true);
+    }
+
+    /**
+     * puts a value into the window
+     *
+     * @param value the value of the source
+     * @return the statistic including the value, NaN for a gap
+     */
+    private double add(double value) {
+        if (Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        if (mStatistic == Statistic.EXPONENTIAL_MOVING_AVERAGE) {
+            if (mWindowCount == 0) {
+                mWindowCount = 1;
+                mMean = value;
+            } else {
+                mMean += (value - mMean) * 2 / (mWindow.length + 1);
+            }
+            return mMean;
+        }
+
+        if (mWindowCount < mWindow.length) {
+            int p = mWindowHead + mWindowCount;
+            if (p >= mWindow.length) p -= mWindow.length;
+            mWindow[p] = value;
+            mWindowCount++;
+            double delta = value - mMean;
+            mMean += delta / mWindowCount;
+            mSquares += delta * (value - mMean);
+        } else {
+            // replace the oldest value
+            double old = mWindow[mWindowHead];
+            mWindow[mWindowHead] = value;
+            mWindowHead++;
+            if (mWindowHead == mWindow.length) mWindowHead = 0;
+            double mean = mMean + (value - old) / mWindowCount;
+            mSquares += (value - old) * (value - mean + old - mMean);
+            mMean = mean;
+        }
+
+        if (mStatistic == Statistic.MOVING_AVERAGE) {
+            return mMean;
+        }
+        // rounding can make it slightly negative
+        return Math.sqrt(Math.max(mSquares, 0) / mWindowCount);
+    }
+}